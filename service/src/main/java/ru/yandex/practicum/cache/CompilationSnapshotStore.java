@@ -0,0 +1,242 @@
+package ru.yandex.practicum.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.exceptions.NotFoundException;
+import ru.yandex.practicum.model.CategoryChangedEvent;
+import ru.yandex.practicum.model.Compilation;
+import ru.yandex.practicum.model.CompilationChangedEvent;
+import ru.yandex.practicum.model.Event;
+import ru.yandex.practicum.model.EventChangedEvent;
+import ru.yandex.practicum.model.mapper.CompilationMapper;
+import ru.yandex.practicum.repository.CompilationRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Снимки подборок в виде готового к отправке JSON. Публичные запросы подборок только копируют байты из памяти.
+ * Снимок подборки пересобирается после коммита ее изменения или изменения категории входящего в нее события,
+ * полная пересборка выполняется при старте и периодически. Изменения самих событий (в том числе числа
+ * подтвержденных заявок) только помечают подборки устаревшими: они пересобираются одной задачей
+ * в планировщике через ewm.compilations.refresh-delay, поэтому всплеск регистраций не ждет пересборки
+ * в потоке запроса.
+ * <p>
+ * Снимки хранятся в памяти каждого экземпляра сервиса и обновляются только событиями этого экземпляра:
+ * изменения, сделанные на других экземплярах, видны после периодической пересборки. Подборка, которой
+ * нет в снимке, и список подборок до первой сборки читаются из БД.
+ */
+@Component
+@Slf4j
+public class CompilationSnapshotStore {
+    private static final byte[] EMPTY_ARRAY = {'[', ']'};
+
+    private final CompilationRepository compilationRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final Duration refreshDelay;
+    private final Set<Long> staleCompIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean staleRefreshScheduled = new AtomicBoolean();
+
+    private volatile Snapshot snapshot = new Snapshot(new TreeMap<>());
+    private volatile boolean built;
+
+    public CompilationSnapshotStore(CompilationRepository compilationRepository, ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager, TaskScheduler taskScheduler,
+                                    @Value("${ewm.compilations.refresh-delay:PT1S}") Duration refreshDelay) {
+        this.compilationRepository = compilationRepository;
+        this.objectMapper = objectMapper;
+        this.taskScheduler = taskScheduler;
+        this.refreshDelay = refreshDelay;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Возвращает JSON подборки. Если подборки нет в снимке, например она создана на другом экземпляре,
+     * подборка загружается из БД и добавляется в снимок.
+     */
+    public byte[] get(Long compId) {
+        Entry entry = snapshot.entries.get(compId);
+        if (entry == null) {
+            refresh(List.of(compId));
+            entry = snapshot.entries.get(compId);
+        }
+        if (entry == null) {
+            throw new NotFoundException("Подборка по ID: " + compId + " не найдена.");
+        }
+        return entry.json;
+    }
+
+    /**
+     * Возвращает JSON-массив подборок страницы в порядке id, pinned == null означает все подборки.
+     */
+    public byte[] getAll(Boolean pinned, Pageable pageable) {
+        if (!built) {
+            buildIfAbsent();
+        }
+        List<byte[]> list = pinned == null ? snapshot.all : pinned ? snapshot.pinned : snapshot.unpinned;
+        int from = (int) Math.min(pageable.getOffset(), list.size());
+        int to = Math.min(from + pageable.getPageSize(), list.size());
+        if (from == to) {
+            return EMPTY_ARRAY;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                out.write(',');
+            }
+            out.writeBytes(list.get(i));
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${ewm.compilations.rebuild-interval:PT10M}",
+            fixedDelayString = "${ewm.compilations.rebuild-interval:PT10M}")
+    public synchronized void rebuild() {
+        Map<Long, Entry> entries = transactionTemplate.execute(status ->
+                toEntries(compilationRepository.findAllWithEvents()));
+        snapshot = new Snapshot(new TreeMap<>(entries));
+        built = true;
+        log.info("Снимки подборок пересобраны, подборок: {}.", entries.size());
+    }
+
+    private synchronized void buildIfAbsent() {
+        if (!built) {
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCompilationChanged(CompilationChangedEvent changed) {
+        refresh(List.of(changed.getCompilationId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent changed) {
+        Long eventId = changed.getEventId();
+        List<Long> compIds = snapshot.entries.values().stream()
+                .filter(entry -> entry.eventIds.contains(eventId))
+                .map(entry -> entry.id)
+                .collect(Collectors.toList());
+        if (compIds.isEmpty()) {
+            return;
+        }
+        staleCompIds.addAll(compIds);
+        if (staleRefreshScheduled.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::refreshStale, Instant.now().plus(refreshDelay));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent changed) {
+        Long categoryId = changed.getCategoryId();
+        List<Long> compIds = snapshot.entries.values().stream()
+                .filter(entry -> entry.categoryIds.contains(categoryId))
+                .map(entry -> entry.id)
+                .collect(Collectors.toList());
+        if (!compIds.isEmpty()) {
+            refresh(compIds);
+        }
+    }
+
+    /**
+     * Пересобирает подборки, помеченные устаревшими с момента планирования задачи. Пометки, появившиеся
+     * во время пересборки, планируют следующую задачу.
+     */
+    private void refreshStale() {
+        staleRefreshScheduled.set(false);
+        List<Long> compIds = new ArrayList<>(staleCompIds);
+        staleCompIds.removeAll(compIds);
+        if (compIds.isEmpty()) {
+            return;
+        }
+        try {
+            refresh(compIds);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось пересобрать снимки подборок {}, они обновятся при полной пересборке: {}",
+                    compIds, e.getMessage());
+        }
+    }
+
+    private synchronized void refresh(Collection<Long> compIds) {
+        Map<Long, Entry> refreshed = transactionTemplate.execute(status ->
+                toEntries(compilationRepository.findAllWithEventsByIdIn(compIds)));
+        TreeMap<Long, Entry> entries = new TreeMap<>(snapshot.entries);
+        compIds.forEach(entries::remove);
+        entries.putAll(refreshed);
+        snapshot = new Snapshot(entries);
+    }
+
+    private Map<Long, Entry> toEntries(List<Compilation> compilations) {
+        Map<Long, Entry> entries = new TreeMap<>();
+        for (Compilation compilation : compilations) {
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(CompilationMapper.toCompilationDto(compilation));
+                Set<Long> eventIds = compilation.getEvents().stream()
+                        .map(Event::getId)
+                        .collect(Collectors.toUnmodifiableSet());
+                Set<Long> categoryIds = compilation.getEvents().stream()
+                        .map(event -> event.getCategory().getId())
+                        .collect(Collectors.toUnmodifiableSet());
+                entries.put(compilation.getId(), new Entry(compilation.getId(), compilation.getPinned(), eventIds,
+                        categoryIds, json));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Не удалось сериализовать подборку " + compilation.getId(), e);
+            }
+        }
+        return entries;
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final Long id;
+        private final boolean pinned;
+        private final Set<Long> eventIds;
+        private final Set<Long> categoryIds;
+        private final byte[] json;
+    }
+
+    private static class Snapshot {
+        private final TreeMap<Long, Entry> entries;
+        private final List<byte[]> all = new ArrayList<>();
+        private final List<byte[]> pinned = new ArrayList<>();
+        private final List<byte[]> unpinned = new ArrayList<>();
+
+        Snapshot(TreeMap<Long, Entry> entries) {
+            this.entries = entries;
+            for (Entry entry : entries.values()) {
+                all.add(entry.json);
+                (entry.pinned ? pinned : unpinned).add(entry.json);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.config.EventCacheProperties;
+import ru.yandex.practicum.model.EventChangedEvent;
+import ru.yandex.practicum.model.dto.EventFullDto;
+
+import java.util.function.Supplier;
+
+/**
+ * Кэш полного представления опубликованных событий для /events/{id}. Количество просмотров хранится отдельно
+ * с коротким временем жизни и накладывается на копию закэшированного DTO.
+ * Событие сбрасывается из кэша после коммита любого его изменения.
+ */
+@Component
+public class PublishedEventCache {
+    private final EventCacheProperties properties;
+    private final Cache<Long, EventFullDto> events;
+    private final Cache<Long, Long> views;
+
+    public PublishedEventCache(EventCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.events = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        this.views = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getViewsTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, events, "ewm.events");
+        CaffeineCacheMetrics.monitor(meterRegistry, views, "ewm.events.views");
+    }
+
+    /**
+     * Возвращает событие из кэша или загружает его. Исключение загрузчика пробрасывается, и в кэш ничего
+     * не попадает, поэтому загрузчик должен отклонять неопубликованные события.
+     */
+    public EventFullDto get(Long eventId, Supplier<EventFullDto> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        return events.get(eventId, id -> loader.get());
+    }
+
+    public long getViews(Long eventId, Supplier<Long> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        return views.get(eventId, id -> loader.get());
+    }
+
+    public void invalidate(Long eventId) {
+        events.invalidate(eventId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent changed) {
+        invalidate(changed.getEventId());
+    }
+}
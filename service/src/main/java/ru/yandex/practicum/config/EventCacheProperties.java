@@ -0,0 +1,29 @@
+package ru.yandex.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "ewm.cache.event")
+public class EventCacheProperties {
+    private boolean enabled = true;
+
+    /**
+     * Максимальное количество опубликованных событий в кэше.
+     */
+    private long maxSize = 10_000;
+
+    /**
+     * Время жизни события в кэше. Изменения события сбрасывают его раньше.
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+
+    /**
+     * Время жизни количества просмотров события, запрошенного у сервера статистики.
+     */
+    private Duration viewsTtl = Duration.ofSeconds(10);
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "ewm.index")
+public class EventIndexProperties {
+    /**
+     * Период полной перестройки индексов опубликованных событий из БД. Между перестройками индексы
+     * обновляются по событиям изменения.
+     */
+    private Duration rebuildInterval = Duration.ofMinutes(10);
+
+    private final Geo geo = new Geo();
+
+    private final Text text = new Text();
+
+    @Getter
+    @Setter
+    public static class Geo {
+        /**
+         * Размер ячейки сетки геоиндекса в градусах.
+         */
+        private double cellSize = 0.1;
+
+        /**
+         * Максимальный радиус поиска в километрах.
+         */
+        private double maxRadius = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Text {
+        private double titleWeight = 3;
+
+        private double annotationWeight = 2;
+
+        private double descriptionWeight = 1;
+    }
+}
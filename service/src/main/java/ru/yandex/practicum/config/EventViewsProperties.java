@@ -0,0 +1,34 @@
+package ru.yandex.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "ewm.views")
+public class EventViewsProperties {
+    /**
+     * Запрашивать ли просмотры у сервера статистики при выдаче списков событий. Если выключено,
+     * используется значение колонки events.views, которое обновляет фоновая синхронизация.
+     */
+    private boolean liveLookup = true;
+
+    /**
+     * Период синхронизации колонки events.views с сервером статистики.
+     */
+    private Duration syncInterval = Duration.ofMinutes(1);
+
+    /**
+     * Перекрытие окон синхронизации: хиты отправляются асинхронно и могут попасть на сервер статистики
+     * с опозданием относительно своего времени.
+     */
+    private Duration syncLag = Duration.ofMinutes(1);
+
+    /**
+     * Количество uri в одном запросе к серверу статистики и строк в одном пакете UPDATE.
+     */
+    private int batchSize = 500;
+}
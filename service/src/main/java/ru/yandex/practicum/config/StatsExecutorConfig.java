@@ -0,0 +1,27 @@
+package ru.yandex.practicum.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class StatsExecutorConfig {
+
+    /**
+     * Ограниченный пул для запросов просмотров к серверу статистики из публичных эндпоинтов. Переполнение
+     * не блокирует поток запроса: задача отклоняется, и вызывающий код использует запасной путь.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor statsExecutor(StatsFanOutProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getPoolSize());
+        executor.setMaxPoolSize(properties.getPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("stats-fan-out-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
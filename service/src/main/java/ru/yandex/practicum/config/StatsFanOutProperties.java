@@ -0,0 +1,32 @@
+package ru.yandex.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "ewm.stats-fan-out")
+public class StatsFanOutProperties {
+    /**
+     * Выполнять ли запрос просмотров для публичных списков событий в отдельном пуле с ограничением времени
+     * ожидания. Если выключено, просмотры запрашиваются в потоке запроса. Хиты в пул не попадают:
+     * HitReporter сам отправляет их асинхронно.
+     */
+    private boolean enabled = true;
+
+    private int poolSize = 8;
+
+    /**
+     * Емкость очереди пула. При переполнении просмотры берутся из колонки events.views.
+     */
+    private int queueCapacity = 200;
+
+    /**
+     * Сколько ждать просмотры от сервера статистики после выборки событий. По истечении используется
+     * значение колонки events.views.
+     */
+    private Duration latencyBudget = Duration.ofMillis(300);
+}
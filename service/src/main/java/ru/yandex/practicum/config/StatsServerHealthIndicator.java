@@ -0,0 +1,31 @@
+package ru.yandex.practicum.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.CircuitBreaker;
+import ru.yandex.practicum.StatsClient;
+
+/**
+ * Состояние предохранителя запросов к серверу статистики. Недоступность статистики не делает сервис
+ * неработоспособным - просмотры отдаются из последних известных значений, поэтому статус остается UP,
+ * а состояние предохранителя выводится в деталях.
+ */
+@Component("statsServer")
+@RequiredArgsConstructor
+public class StatsServerHealthIndicator implements HealthIndicator {
+    private final StatsClient statsClient;
+
+    @Override
+    public Health health() {
+        CircuitBreaker circuitBreaker = statsClient.getCircuitBreaker();
+        Health.Builder builder = Health.up()
+                .withDetail("circuitBreaker", circuitBreaker.getState())
+                .withDetail("consecutiveFailures", circuitBreaker.getConsecutiveFailures());
+        if (circuitBreaker.getOpenedAt() != null) {
+            builder.withDetail("lastOpenedAt", circuitBreaker.getOpenedAt().toString());
+        }
+        return builder.build();
+    }
+}
@@ -2,11 +2,11 @@ package ru.yandex.practicum.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.model.dto.CategoryDto;
+import ru.yandex.practicum.pagination.OffsetPageRequest;
 import ru.yandex.practicum.service.CategoryService;
 
 import javax.validation.Valid;
@@ -48,8 +48,7 @@ public class CategoryController {
     public List<CategoryDto> getAllCategories(@RequestParam(required = false, defaultValue = "0") @Min(0) Integer from,
                                               @RequestParam(required = false, defaultValue = "10") @Min(1) Integer size) {
         log.info("Получен GET запрос на нахождение всех категорий с параметрами from= {} & size= {}.", from, size);
-        int page = from > 0 ? from / size : from;
-        return categoryService.getAllCategories(PageRequest.of(page, size));
+        return categoryService.getAllCategories(OffsetPageRequest.of(from, size));
     }
 
     @GetMapping("/categories/{catId}")
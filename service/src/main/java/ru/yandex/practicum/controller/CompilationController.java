@@ -2,18 +2,18 @@ package ru.yandex.practicum.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.model.dto.CompilationDto;
 import ru.yandex.practicum.model.dto.NewCompilationDto;
 import ru.yandex.practicum.model.dto.UpdateCompilationRequestDto;
+import ru.yandex.practicum.pagination.OffsetPageRequest;
 import ru.yandex.practicum.service.CompilationService;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
-import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -46,19 +46,18 @@ public class CompilationController {
     }
 
     // ---------------public-----------------
-    @GetMapping("/compilations")
-    public List<CompilationDto> getAllCompilations(@RequestParam(required = false) Boolean pinned,
-                                                   @RequestParam(required = false, defaultValue = "0") @Min(0) Integer from,
-                                                   @RequestParam(required = false, defaultValue = "10") @Min(1) Integer size) {
+    @GetMapping(value = "/compilations", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getAllCompilations(@RequestParam(required = false) Boolean pinned,
+                                     @RequestParam(required = false, defaultValue = "0") @Min(0) Integer from,
+                                     @RequestParam(required = false, defaultValue = "10") @Min(1) Integer size) {
         log.info("Получен GET запрос на нахождение всех подборок с параметрами pinned= {}; from= {}; size= {}.",
                 pinned, from, size);
-        int page = from > 0 ? from / size : from;
-        return compilationService.getAllCompilations(pinned, PageRequest.of(page, size));
+        return compilationService.getAllCompilationsJson(pinned, OffsetPageRequest.of(from, size));
     }
 
-    @GetMapping("/compilations/{compId}")
-    public CompilationDto getCompilationById(@PathVariable Long compId) {
+    @GetMapping(value = "/compilations/{compId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getCompilationById(@PathVariable Long compId) {
         log.info("Получен GET запрос на нахождение подборки по ID: {}.", compId);
-        return compilationService.getCompilationById(compId);
+        return compilationService.getCompilationByIdJson(compId);
     }
 }
@@ -2,7 +2,6 @@ package ru.yandex.practicum.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -11,12 +10,19 @@ import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.enums.RatingSortType;
 import ru.yandex.practicum.model.dto.*;
 import ru.yandex.practicum.enums.EventSortType;
+import ru.yandex.practicum.exceptions.ValidationException;
+import ru.yandex.practicum.pagination.KeysetCursor;
+import ru.yandex.practicum.pagination.OffsetPageRequest;
 import ru.yandex.practicum.service.EventService;
 import ru.yandex.practicum.service.RequestService;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.Positive;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -29,6 +35,8 @@ public class EventController {
     private final RequestService requestService;
 
     private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+    private static final String EVENT_DATE = "eventDate";
+    private static final String VIEWS = "views";
 
     // ---------------admin------------------
     @GetMapping("/admin/events")
@@ -38,12 +46,16 @@ public class EventController {
                                            @RequestParam(required = false) @DateTimeFormat(pattern = DATE_FORMAT) LocalDateTime rangeStart,
                                            @RequestParam(required = false) @DateTimeFormat(pattern = DATE_FORMAT) LocalDateTime rangeEnd,
                                            @RequestParam(required = false, defaultValue = "0") @Min(0) Integer from,
-                                           @RequestParam(required = false, defaultValue = "10") @Min(1) Integer size) {
+                                           @RequestParam(required = false, defaultValue = "10") @Min(1) Integer size,
+                                           @RequestParam(required = false) String cursor,
+                                           HttpServletResponse response) {
         log.info("Получен GET запрос на нахождение всех событий с параметрами: users= {}; states= {}; categories= {}; " +
-                        "rangeStart= {}; rangeEnd= {}; from= {}; size= {}.", users, states, categories, rangeStart,
-                rangeEnd, from, size);
-        int page = from > 0 ? from / size : from;
-        return eventService.getAllEvents(users, states, categories, rangeStart, rangeEnd, PageRequest.of(page, size));
+                        "rangeStart= {}; rangeEnd= {}; from= {}; size= {}; cursor= {}.", users, states, categories,
+                rangeStart, rangeEnd, from, size, cursor);
+        List<EventFullDto> events = eventService.getAllEvents(users, states, categories, rangeStart, rangeEnd,
+                OffsetPageRequest.of(from, size, Sort.by(KeysetCursor.ID), cursor));
+        setNextCursor(response, KeysetCursor.next(events, size, EventFullDto::getId));
+        return events;
     }
 
     @PatchMapping("/admin/events/{eventId}")
@@ -66,25 +78,50 @@ public class EventController {
             @RequestParam(required = false) EventSortType sort,
             @RequestParam(required = false, defaultValue = "0") @Min(0) Integer from,
             @RequestParam(required = false, defaultValue = "10") @Min(1) Integer size,
-            HttpServletRequest request) {
+            @RequestParam(required = false) String cursor,
+            HttpServletRequest request,
+            HttpServletResponse response) {
         log.info("Получен GET запрос на нахождение всех событий с параметрами: text= {}; categories= {}; paid= {}; " +
-                        "rangeStart= {}; rangeEnd= {}; onlyAvailable= {}; sort= {}; from= {}; size= {}.", text,
-                categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size);
+                        "rangeStart= {}; rangeEnd= {}; onlyAvailable= {}; sort= {}; from= {}; size= {}; cursor= {}.",
+                text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size, cursor);
 
         if (rangeStart == null && rangeEnd == null) {
             rangeStart = LocalDateTime.now();
         }
-        int page = from > 0 ? from / size : from;
-        PageRequest pageRequest = PageRequest.of(page, size);
-        if (sort != null) {
-            if (sort.equals(EventSortType.EVENT_DATE)) {
-                pageRequest = PageRequest.of(page, size, Sort.by("eventDate"));
-            } else {
-                pageRequest = PageRequest.of(page, size, Sort.by("views").descending());
-            }
+        // Курсор продолжения поддерживается только для сортировок по индексируемому ключу (ключ, id),
+        // в том числе по сохраненным просмотрам; релевантность вычисляется в памяти.
+        boolean seekable = text == null || sort != null;
+        if (cursor != null && !seekable) {
+            throw new ValidationException("Курсор продолжения не поддерживается для сортировки по релевантности.");
         }
-        return eventService.getAllEventsSorted(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort,
-                pageRequest, request);
+        Sort order = Sort.by(KeysetCursor.ID);
+        if (sort == EventSortType.EVENT_DATE) {
+            order = Sort.by(EVENT_DATE, KeysetCursor.ID);
+        } else if (sort == EventSortType.VIEWS) {
+            order = Sort.by(Sort.Direction.DESC, VIEWS, KeysetCursor.ID);
+        }
+        List<EventShortDto> events = eventService.getAllEventsSorted(text, categories, paid, rangeStart, rangeEnd,
+                onlyAvailable, sort, OffsetPageRequest.of(from, size, order, cursor), request);
+        if (seekable) {
+            setNextCursor(response, sort == EventSortType.EVENT_DATE
+                    ? KeysetCursor.next(events, size, EVENT_DATE, EventShortDto::getEventDate, EventShortDto::getId)
+                    : sort == EventSortType.VIEWS
+                    ? KeysetCursor.next(events, size, VIEWS, EventShortDto::getViews, EventShortDto::getId)
+                    : KeysetCursor.next(events, size, EventShortDto::getId));
+        }
+        return events;
+    }
+
+    @GetMapping("/events/nearby")
+    public List<EventShortDto> getEventsNearby(
+            @RequestParam @DecimalMin("-90") @DecimalMax("90") Double lat,
+            @RequestParam @DecimalMin("-180") @DecimalMax("180") Double lon,
+            @RequestParam(required = false, defaultValue = "10") @Positive Double radius,
+            @RequestParam(required = false, defaultValue = "0") @Min(0) Integer from,
+            @RequestParam(required = false, defaultValue = "10") @Min(1) Integer size) {
+        log.info("Получен GET запрос на нахождение событий рядом с точкой: lat= {}; lon= {}; radius= {}; from= {}; " +
+                "size= {}.", lat, lon, radius, from, size);
+        return eventService.getEventsNearby(lat, lon, radius, from, size);
     }
 
     @GetMapping("/events/{id}")
@@ -98,25 +135,32 @@ public class EventController {
             @RequestParam(required = false, defaultValue = "DESC") RatingSortType sort,
             @RequestParam(required = false, defaultValue = "0") @Min(0) Integer from,
             @RequestParam(required = false, defaultValue = "10") @Min(1) Integer size,
-            HttpServletRequest request) {
-        log.info("Получен GET запрос на нахождение всех событий по рейтингу с параметрами: sort= {}; from= {}; size= {}.",
-                sort, from, size);
-
-        int page = from > 0 ? from / size : from;
-        PageRequest pageRequest = PageRequest.of(page, size);
-
-        return eventService.getAllEventsSortedByRating(sort, pageRequest, request);
+            @RequestParam(required = false) String cursor,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        log.info("Получен GET запрос на нахождение всех событий по рейтингу с параметрами: sort= {}; from= {}; size= {}; " +
+                "cursor= {}.", sort, from, size, cursor);
+
+        List<EventShortDto> events = eventService.getAllEventsSortedByRating(
+                OffsetPageRequest.of(from, size, sort.toSort(), cursor), request);
+        setNextCursor(response, KeysetCursor.next(events, size, RatingSortType.RATING, EventShortDto::getRating,
+                EventShortDto::getId));
+        return events;
     }
 
     // ---------------private----------------
     @GetMapping("/users/{userId}/events")
     public List<EventShortDto> getAllEventsCreatedByUser(@PathVariable Long userId,
                                                          @RequestParam(required = false, defaultValue = "0") @Min(0) Integer from,
-                                                         @RequestParam(required = false, defaultValue = "10") @Min(1) Integer size) {
+                                                         @RequestParam(required = false, defaultValue = "10") @Min(1) Integer size,
+                                                         @RequestParam(required = false) String cursor,
+                                                         HttpServletResponse response) {
         log.info("Получен GET запрос на нахождение всех событий, созданных пользователем: {} с параметрами: from= {}; " +
-                "size= {}.", userId, from, size);
-        int page = from > 0 ? from / size : from;
-        return eventService.getAllEventsCreatedByUser(userId, PageRequest.of(page, size));
+                "size= {}; cursor= {}.", userId, from, size, cursor);
+        List<EventShortDto> events = eventService.getAllEventsCreatedByUser(userId,
+                OffsetPageRequest.of(from, size, Sort.by(KeysetCursor.ID), cursor));
+        setNextCursor(response, KeysetCursor.next(events, size, EventShortDto::getId));
+        return events;
     }
 
     @PostMapping("/users/{userId}/events")
@@ -159,4 +203,10 @@ public class EventController {
                 "Стало:\n {}", eventId, userId, eventDto);
         return requestService.updateRequestsStatusForEventCreatedByUser(userId, eventId, eventDto);
     }
+
+    private static void setNextCursor(HttpServletResponse response, String cursor) {
+        if (cursor != null) {
+            response.setHeader(KeysetCursor.HEADER, cursor);
+        }
+    }
 }
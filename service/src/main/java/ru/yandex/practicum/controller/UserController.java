@@ -2,14 +2,17 @@ package ru.yandex.practicum.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.enums.RatingSortType;
 import ru.yandex.practicum.model.dto.UserDto;
+import ru.yandex.practicum.pagination.KeysetCursor;
+import ru.yandex.practicum.pagination.OffsetPageRequest;
 import ru.yandex.practicum.service.UserService;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import java.util.List;
@@ -26,11 +29,15 @@ public class UserController {
     @GetMapping("/admin/users")
     public List<UserDto> getAllUsers(@RequestParam(required = false) List<Long> ids,
                                      @RequestParam(defaultValue = "0") @Min(0) final Integer from,
-                                     @RequestParam(defaultValue = "10") @Min(1) final Integer size) {
-        log.info("Получен GET запрос на нахождение всех пользователей с ID: {} с параметрами from= {} & size= {}.",
-                ids, from, size);
-        int page = from > 0 ? from / size : from;
-        return userService.getAllUsers(ids, PageRequest.of(page, size));
+                                     @RequestParam(defaultValue = "10") @Min(1) final Integer size,
+                                     @RequestParam(required = false) String cursor,
+                                     HttpServletResponse response) {
+        log.info("Получен GET запрос на нахождение всех пользователей с ID: {} с параметрами from= {} & size= {} " +
+                "& cursor= {}.", ids, from, size, cursor);
+        List<UserDto> users = userService.getAllUsers(ids,
+                OffsetPageRequest.of(from, size, Sort.by(KeysetCursor.ID), cursor));
+        setNextCursor(response, KeysetCursor.next(users, size, UserDto::getId));
+        return users;
     }
 
     @PostMapping("/admin/users")
@@ -52,13 +59,22 @@ public class UserController {
     public List<UserDto> getAllUsersSortedByRating(
             @RequestParam(required = false, defaultValue = "DESC") RatingSortType sort,
             @RequestParam(required = false, defaultValue = "0") @Min(0) Integer from,
-            @RequestParam(required = false, defaultValue = "10") @Min(1) Integer size) {
-        log.info("Получен GET запрос на нахождение всех пользователей по рейтингу с параметрами: sort= {}; from= {}; size= {}.",
-                sort, from, size);
+            @RequestParam(required = false, defaultValue = "10") @Min(1) Integer size,
+            @RequestParam(required = false) String cursor,
+            HttpServletResponse response) {
+        log.info("Получен GET запрос на нахождение всех пользователей по рейтингу с параметрами: sort= {}; from= {}; size= {}; " +
+                "cursor= {}.", sort, from, size, cursor);
 
-        int page = from > 0 ? from / size : from;
-        PageRequest pageRequest = PageRequest.of(page, size);
+        List<UserDto> users = userService.getAllUsersSortedByRating(
+                OffsetPageRequest.of(from, size, sort.toSort(), cursor));
+        setNextCursor(response, KeysetCursor.next(users, size, RatingSortType.RATING, UserDto::getRating,
+                UserDto::getId));
+        return users;
+    }
 
-        return userService.getAllUsersSortedByRating(sort, pageRequest);
+    private static void setNextCursor(HttpServletResponse response, String cursor) {
+        if (cursor != null) {
+            response.setHeader(KeysetCursor.HEADER, cursor);
+        }
     }
 }
@@ -1,6 +1,18 @@
 package ru.yandex.practicum.enums;
 
+import org.springframework.data.domain.Sort;
+
 public enum RatingSortType {
     ASC,
-    DESC
+    DESC;
+
+    public static final String RATING = "rating";
+
+    /**
+     * Порядок по рейтингу, при равном рейтинге - по возрастанию id. Обходится по индексу (rating, id)
+     * или (rating DESC, id) соответственно.
+     */
+    public Sort toSort() {
+        return Sort.by(this == ASC ? Sort.Order.asc(RATING) : Sort.Order.desc(RATING), Sort.Order.asc("id"));
+    }
 }
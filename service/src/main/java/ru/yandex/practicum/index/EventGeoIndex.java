@@ -0,0 +1,228 @@
+package ru.yandex.practicum.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.config.EventIndexProperties;
+import ru.yandex.practicum.enums.EventState;
+import ru.yandex.practicum.exceptions.ValidationException;
+import ru.yandex.practicum.model.Event;
+import ru.yandex.practicum.model.EventChangedEvent;
+import ru.yandex.practicum.model.EventGeoPoint;
+import ru.yandex.practicum.repository.EventRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Геоиндекс опубликованных событий в памяти: точки раскладываются по ячейкам равноугольной сетки,
+ * поиск в радиусе просматривает только ячейки, покрывающие радиус, и фильтрует точки по расстоянию гаверсинуса.
+ * Индекс перестраивается из БД при старте и периодически, между перестройками обновляется по событиям изменения.
+ */
+@Component
+@Slf4j
+public class EventGeoIndex {
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private final EventRepository eventRepository;
+    private final double cellSize;
+    private final int lonCells;
+    private final double maxRadius;
+
+    private final Object changeLock = new Object();
+
+    private volatile Grid grid = new Grid();
+    private Map<Long, Point> pendingChanges;
+
+    public EventGeoIndex(EventRepository eventRepository, EventIndexProperties properties) {
+        this.eventRepository = eventRepository;
+        this.cellSize = properties.getGeo().getCellSize();
+        this.lonCells = (int) Math.ceil(360 / cellSize);
+        this.maxRadius = properties.getGeo().getMaxRadius();
+    }
+
+    /**
+     * Изменения, пришедшие во время чтения событий из БД, применяются к текущему индексу и запоминаются,
+     * а затем повторяются на новом индексе перед заменой: иначе они потерялись бы вместе со старым индексом.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${ewm.index.rebuild-interval:PT10M}",
+            fixedDelayString = "${ewm.index.rebuild-interval:PT10M}")
+    public synchronized void rebuild() {
+        synchronized (changeLock) {
+            pendingChanges = new LinkedHashMap<>();
+        }
+        Grid rebuilt = new Grid();
+        try {
+            for (EventGeoPoint point : eventRepository.findAllGeoPoints(EventState.PUBLISHED)) {
+                rebuilt.put(new Point(point.getId(), point.getLat(), point.getLon()));
+            }
+            synchronized (changeLock) {
+                pendingChanges.forEach((id, point) -> apply(rebuilt, id, point));
+                grid = rebuilt;
+            }
+        } finally {
+            synchronized (changeLock) {
+                pendingChanges = null;
+            }
+        }
+        log.info("Геоиндекс событий перестроен, проиндексировано {} событий.", rebuilt.points.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent changed) {
+        Event event = changed.getEvent();
+        if (event == null) {
+            return;
+        }
+        Point point = null;
+        if (event.getState() == EventState.PUBLISHED && event.getLocation() != null
+                && event.getLocation().getLat() != null && event.getLocation().getLon() != null) {
+            point = new Point(event.getId(), event.getLocation().getLat(), event.getLocation().getLon());
+        }
+        synchronized (changeLock) {
+            apply(grid, event.getId(), point);
+            if (pendingChanges != null) {
+                pendingChanges.remove(event.getId());
+                pendingChanges.put(event.getId(), point);
+            }
+        }
+    }
+
+    /**
+     * Помещает событие в индекс или, если точки нет, удаляет его.
+     */
+    private static void apply(Grid target, Long id, Point point) {
+        if (point == null) {
+            target.remove(id);
+        } else {
+            target.put(point);
+        }
+    }
+
+    /**
+     * Возвращает id событий не дальше radiusKm от точки, упорядоченные по расстоянию, не более limit.
+     */
+    public List<Long> findNearby(double lat, double lon, double radiusKm, int limit) {
+        if (radiusKm > maxRadius) {
+            throw new ValidationException("Радиус поиска " + radiusKm + " км больше максимального: " + maxRadius + " км.");
+        }
+        Grid current = grid;
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        int latFrom = latIndex(Math.max(-90, lat - latDelta));
+        int latTo = latIndex(Math.min(90, lat + latDelta));
+
+        double maxAbsLat = Math.min(90, Math.abs(lat) + latDelta);
+        double lonDelta = maxAbsLat >= 90 ? 180 : latDelta / Math.cos(Math.toRadians(maxAbsLat));
+        int lonFrom;
+        int lonTo;
+        if (lonDelta >= 180) {
+            lonFrom = 0;
+            lonTo = lonCells - 1;
+        } else {
+            lonFrom = (int) Math.floor((lon - lonDelta + 180) / cellSize);
+            lonTo = (int) Math.floor((lon + lonDelta + 180) / cellSize);
+            if (lonTo - lonFrom + 1 >= lonCells) {
+                lonFrom = 0;
+                lonTo = lonCells - 1;
+            }
+        }
+
+        List<Candidate> found = new ArrayList<>();
+        for (int latIndex = latFrom; latIndex <= latTo; latIndex++) {
+            for (int lonIndex = lonFrom; lonIndex <= lonTo; lonIndex++) {
+                Map<Long, Point> cell = current.cells.get(cellKey(latIndex, Math.floorMod(lonIndex, lonCells)));
+                if (cell == null) {
+                    continue;
+                }
+                for (Point point : cell.values()) {
+                    double distance = distanceKm(lat, lon, point.getLat(), point.getLon());
+                    if (distance <= radiusKm) {
+                        found.add(new Candidate(point.getId(), distance));
+                    }
+                }
+            }
+        }
+        found.sort(Comparator.comparingDouble(Candidate::getDistance).thenComparing(Candidate::getId));
+
+        List<Long> ids = new ArrayList<>(Math.min(limit, found.size()));
+        for (int i = 0; i < found.size() && i < limit; i++) {
+            ids.add(found.get(i).getId());
+        }
+        return ids;
+    }
+
+    private int latIndex(double lat) {
+        return (int) Math.floor((lat + 90) / cellSize);
+    }
+
+    private long cellKeyOf(double lat, double lon) {
+        return cellKey(latIndex(lat), Math.floorMod((int) Math.floor((lon + 180) / cellSize), lonCells));
+    }
+
+    private static long cellKey(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | lonIndex;
+    }
+
+    private static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private class Grid {
+        private final Map<Long, Map<Long, Point>> cells = new ConcurrentHashMap<>();
+        private final Map<Long, Point> points = new ConcurrentHashMap<>();
+
+        void put(Point point) {
+            Point previous = points.put(point.getId(), point);
+            if (previous != null) {
+                removeFromCell(previous);
+            }
+            cells.computeIfAbsent(cellKeyOf(point.getLat(), point.getLon()), key -> new ConcurrentHashMap<>())
+                    .put(point.getId(), point);
+        }
+
+        void remove(Long id) {
+            Point previous = points.remove(id);
+            if (previous != null) {
+                removeFromCell(previous);
+            }
+        }
+
+        private void removeFromCell(Point point) {
+            cells.computeIfPresent(cellKeyOf(point.getLat(), point.getLon()), (key, cell) -> {
+                cell.remove(point.getId(), point);
+                return cell.isEmpty() ? null : cell;
+            });
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Point {
+        private final Long id;
+        private final double lat;
+        private final double lon;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Candidate {
+        private final Long id;
+        private final double distance;
+    }
+}
@@ -0,0 +1,239 @@
+package ru.yandex.practicum.index;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.config.EventIndexProperties;
+import ru.yandex.practicum.enums.EventState;
+import ru.yandex.practicum.model.Event;
+import ru.yandex.practicum.model.EventChangedEvent;
+import ru.yandex.practicum.model.EventText;
+import ru.yandex.practicum.repository.EventRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Полнотекстовый индекс опубликованных событий в памяти по title, annotation и description.
+ * Термины хранятся в отсортированном словаре, поэтому каждое слово запроса ищется как префикс.
+ * Событие должно содержать все слова запроса; результаты ранжируются по BM25 с весами полей.
+ * Индекс перестраивается из БД при старте и периодически, между перестройками обновляется по событиям изменения.
+ */
+@Component
+@Slf4j
+public class EventTextIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    private final EventRepository eventRepository;
+    private final EventIndexProperties.Text properties;
+
+    private final Object changeLock = new Object();
+
+    private volatile Index index = new Index();
+    private Map<Long, Document> pendingChanges;
+
+    public EventTextIndex(EventRepository eventRepository, EventIndexProperties properties) {
+        this.eventRepository = eventRepository;
+        this.properties = properties.getText();
+    }
+
+    /**
+     * Изменения, пришедшие во время чтения событий из БД, применяются к текущему индексу и запоминаются,
+     * а затем повторяются на новом индексе перед заменой.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${ewm.index.rebuild-interval:PT10M}",
+            fixedDelayString = "${ewm.index.rebuild-interval:PT10M}")
+    public synchronized void rebuild() {
+        synchronized (changeLock) {
+            pendingChanges = new LinkedHashMap<>();
+        }
+        Index rebuilt = new Index();
+        try {
+            for (EventText text : eventRepository.findAllTexts(EventState.PUBLISHED)) {
+                rebuilt.put(text.getId(), text.getTitle(), text.getAnnotation(), text.getDescription());
+            }
+            synchronized (changeLock) {
+                pendingChanges.forEach((id, document) -> apply(rebuilt, id, document));
+                index = rebuilt;
+            }
+        } finally {
+            synchronized (changeLock) {
+                pendingChanges = null;
+            }
+        }
+        log.info("Полнотекстовый индекс событий перестроен, проиндексировано {} событий.", rebuilt.lengths.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent changed) {
+        Event event = changed.getEvent();
+        if (event == null) {
+            return;
+        }
+        Document document = event.getState() == EventState.PUBLISHED
+                ? new Document(event.getTitle(), event.getAnnotation(), event.getDescription())
+                : null;
+        synchronized (changeLock) {
+            apply(index, event.getId(), document);
+            if (pendingChanges != null) {
+                pendingChanges.remove(event.getId());
+                pendingChanges.put(event.getId(), document);
+            }
+        }
+    }
+
+    /**
+     * Возвращает id всех событий, содержащих все слова запроса, в порядке убывания релевантности.
+     */
+    public List<Long> search(String text) {
+        Set<String> tokens = new LinkedHashSet<>(tokenize(text));
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        Index current = index;
+        int documents = current.lengths.size();
+        double averageLength = documents == 0 ? 0 : (double) current.totalLength.get() / documents;
+
+        Map<Long, Double> scores = null;
+        for (String token : tokens) {
+            // Частоты всех терминов с этим префиксом суммируются, чтобы словоформы считались одним словом.
+            Map<Long, Double> frequencies = new HashMap<>();
+            for (Map<Long, Double> postings : current.terms.subMap(token, token + Character.MAX_VALUE).values()) {
+                postings.forEach((id, frequency) -> frequencies.merge(id, frequency, Double::sum));
+            }
+            double idf = Math.log(1 + (documents - frequencies.size() + 0.5) / (frequencies.size() + 0.5));
+            Map<Long, Double> tokenScores = new HashMap<>();
+            frequencies.forEach((id, frequency) -> {
+                Double length = current.lengths.get(id);
+                if (length != null) {
+                    double norm = K1 * (1 - B + B * length / averageLength);
+                    tokenScores.put(id, idf * frequency * (K1 + 1) / (frequency + norm));
+                }
+            });
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                Map<Long, Double> matched = new HashMap<>();
+                for (Map.Entry<Long, Double> entry : tokenScores.entrySet()) {
+                    Double score = scores.get(entry.getKey());
+                    if (score != null) {
+                        matched.put(entry.getKey(), score + entry.getValue());
+                    }
+                }
+                scores = matched;
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, Double> entry : ranked) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                token.append(c == 'ё' ? 'е' : c);
+            } else if (token.length() > 0) {
+                if (token.length() >= MIN_TOKEN_LENGTH) {
+                    tokens.add(token.toString());
+                }
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Помещает событие в индекс или, если документа нет, удаляет его.
+     */
+    private static void apply(Index target, Long id, Document document) {
+        if (document == null) {
+            target.remove(id);
+        } else {
+            target.put(id, document.title, document.annotation, document.description);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Document {
+        private final String title;
+        private final String annotation;
+        private final String description;
+    }
+
+    private class Index {
+        private final ConcurrentSkipListMap<String, Map<Long, Double>> terms = new ConcurrentSkipListMap<>();
+        private final Map<Long, Set<String>> documentTerms = new ConcurrentHashMap<>();
+        private final Map<Long, Double> lengths = new ConcurrentHashMap<>();
+        private final AtomicLong totalLength = new AtomicLong();
+
+        synchronized void put(Long id, String title, String annotation, String description) {
+            remove(id);
+            Map<String, Double> frequencies = new HashMap<>();
+            double length = addField(frequencies, title, properties.getTitleWeight())
+                    + addField(frequencies, annotation, properties.getAnnotationWeight())
+                    + addField(frequencies, description, properties.getDescriptionWeight());
+            frequencies.forEach((term, frequency) ->
+                    terms.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(id, frequency));
+            documentTerms.put(id, frequencies.keySet());
+            lengths.put(id, length);
+            totalLength.addAndGet(Math.round(length));
+        }
+
+        synchronized void remove(Long id) {
+            Set<String> previous = documentTerms.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (String term : previous) {
+                terms.computeIfPresent(term, (t, postings) -> {
+                    postings.remove(id);
+                    return postings.isEmpty() ? null : postings;
+                });
+            }
+            Double length = lengths.remove(id);
+            if (length != null) {
+                totalLength.addAndGet(-Math.round(length));
+            }
+        }
+
+        private double addField(Map<String, Double> frequencies, String text, double weight) {
+            List<String> tokens = tokenize(text);
+            for (String token : tokens) {
+                frequencies.merge(token, weight, Double::sum);
+            }
+            return tokens.size() * weight;
+        }
+    }
+}
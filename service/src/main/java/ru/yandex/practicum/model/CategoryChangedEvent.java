@@ -0,0 +1,16 @@
+package ru.yandex.practicum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Событие приложения об изменении категории. Категория входит в представления событий, поэтому слушатели
+ * обновляют производные структуры, в которых хранится ее название.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CategoryChangedEvent {
+    private final Long categoryId;
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Событие приложения о добавлении, обновлении или удалении подборки.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CompilationChangedEvent {
+    private final Long compilationId;
+}
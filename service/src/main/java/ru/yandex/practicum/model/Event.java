@@ -11,8 +11,22 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+        @Index(name = "events_event_date_id_idx", columnList = "event_date, id"),
+        @Index(name = "events_state_event_date_id_idx", columnList = "state, event_date, id"),
+        @Index(name = "events_category_id_event_date_idx", columnList = "category_id, event_date"),
+        @Index(name = "events_user_id_id_idx", columnList = "user_id, id"),
+        @Index(name = "events_rating_id_idx", columnList = "rating, id"),
+        @Index(name = "events_rating_desc_id_idx", columnList = "rating DESC, id"),
+        @Index(name = "events_views_id_idx", columnList = "views, id")
+})
+@NamedEntityGraph(name = Event.WITH_CATEGORY_AND_INITIATOR, attributeNodes = {
+        @NamedAttributeNode("category"),
+        @NamedAttributeNode("initiator")
+})
 public class Event {
+    public static final String WITH_CATEGORY_AND_INITIATOR = "Event.withCategoryAndInitiator";
+
     @EqualsAndHashCode.Exclude
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -43,8 +57,8 @@ public class Event {
     @JoinColumn(name = "user_id", nullable = false)
     private User initiator;
 
-    @Column
-    private String location;
+    @Embedded
+    private Location location;
 
     @Column
     private Boolean paid;
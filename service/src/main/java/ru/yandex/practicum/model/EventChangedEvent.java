@@ -0,0 +1,31 @@
+package ru.yandex.practicum.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Событие приложения об изменении события: создание, обновление, публикация, изменение числа
+ * подтвержденных заявок. Слушатели обновляют производные структуры (индексы, кэши) после коммита.
+ * Связи category и initiator в переданной сущности могут быть не загружены.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class EventChangedEvent {
+    private final Long eventId;
+
+    /**
+     * Измененная сущность или null, если изменилось только число подтвержденных заявок.
+     */
+    private final Event event;
+
+    public EventChangedEvent(Event event) {
+        this(event.getId(), event);
+    }
+
+    public static EventChangedEvent confirmedRequestsChanged(Long eventId) {
+        return new EventChangedEvent(eventId, null);
+    }
+}
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.model;
+
+public interface EventGeoPoint {
+    Long getId();
+
+    Double getLat();
+
+    Double getLon();
+}
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.model;
+
+public interface EventText {
+    Long getId();
+
+    String getTitle();
+
+    String getAnnotation();
+
+    String getDescription();
+}
@@ -1,16 +0,0 @@
-package ru.yandex.practicum.model;
-
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
-
-@Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
-public class EventViewStats {
-    private String app;
-    private String uri;
-    private String hits;
-}
\ No newline at end of file
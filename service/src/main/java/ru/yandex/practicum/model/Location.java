@@ -8,17 +8,11 @@ import javax.persistence.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-@Entity
-@Table(name = "event_location")
+@Embeddable
 public class Location {
-    @EqualsAndHashCode.Exclude
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    @Column
+    @Column(name = "lat")
     private Double lat;
 
-    @Column
+    @Column(name = "lon")
     private Double lon;
 }
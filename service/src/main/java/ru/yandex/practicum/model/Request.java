@@ -11,7 +11,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "requests")
+@Table(name = "requests",
+        uniqueConstraints = @UniqueConstraint(name = "requests_user_event_uq", columnNames = {"user_id", "event_id"}),
+        indexes = @Index(name = "requests_event_id_idx", columnList = "event_id"))
 public class Request {
     @EqualsAndHashCode.Exclude
     @Id
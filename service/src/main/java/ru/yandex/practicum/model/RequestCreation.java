@@ -0,0 +1,31 @@
+package ru.yandex.practicum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import ru.yandex.practicum.enums.EventState;
+import ru.yandex.practicum.enums.RequestStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Результат создания заявки одним запросом: созданная заявка (или null) и снимок проверенных условий,
+ * по которому определяется причина отказа.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RequestCreation {
+    private final boolean userFound;
+    private final boolean eventFound;
+    private final Long initiatorId;
+    private final EventState state;
+    private final Integer participantLimit;
+    private final Integer confirmedRequests;
+    private final boolean requestModeration;
+    private final boolean duplicate;
+    private final Long requestId;
+    private final LocalDateTime created;
+    private final RequestStatus status;
+    private final boolean seatReserved;
+}
@@ -1,6 +1,8 @@
 package ru.yandex.practicum.model;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
@@ -11,8 +13,15 @@ import javax.validation.constraints.Email;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@Table(name = "users", indexes = {
+        @Index(name = "users_rating_id_idx", columnList = "rating, id"),
+        @Index(name = "users_rating_desc_id_idx", columnList = "rating DESC, id")
+})
 public class User {
+    public static final String CACHE_REGION = "users";
+
     @EqualsAndHashCode.Exclude
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class EventFullDto {
     private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
 
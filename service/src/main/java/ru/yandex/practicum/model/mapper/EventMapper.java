@@ -1,20 +1,15 @@
 package ru.yandex.practicum.model.mapper;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.experimental.UtilityClass;
 import ru.yandex.practicum.model.Category;
 import ru.yandex.practicum.model.Event;
-import ru.yandex.practicum.model.Location;
 import ru.yandex.practicum.model.dto.EventFullDto;
 import ru.yandex.practicum.model.dto.EventShortDto;
 import ru.yandex.practicum.model.dto.NewEventDto;
 
 @UtilityClass
 public class EventMapper {
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
-    public static EventFullDto toEventFullDto(Event event) throws JsonProcessingException {
+    public static EventFullDto toEventFullDto(Event event) {
         if (event != null) {
             return EventFullDto.builder()
                     .annotation(event.getAnnotation())
@@ -25,7 +20,7 @@ public class EventMapper {
                     .eventDate(event.getEventDate())
                     .id(event.getId())
                     .initiator(UserMapper.toUserDto(event.getInitiator()))
-                    .location(LocationMapper.toLocationDto(objectMapper.readValue(event.getLocation(), Location.class)))
+                    .location(LocationMapper.toLocationDto(event.getLocation()))
                     .paid(event.getPaid())
                     .participantLimit(event.getParticipantLimit())
                     .publishedOn(event.getPublishedOn())
@@ -59,14 +54,14 @@ public class EventMapper {
         }
     }
 
-    public static Event toEvent(NewEventDto eventDto, Category category) throws JsonProcessingException {
+    public static Event toEvent(NewEventDto eventDto, Category category) {
         if (eventDto != null) {
             return Event.builder()
                     .annotation(eventDto.getAnnotation())
                     .category(category)
                     .description(eventDto.getDescription())
                     .eventDate(eventDto.getEventDate())
-                    .location(objectMapper.writeValueAsString(eventDto.getLocation()))
+                    .location(LocationMapper.toLocation(eventDto.getLocation()))
                     .paid(eventDto.getPaid() != null ? eventDto.getPaid() : false)
                     .participantLimit(eventDto.getParticipantLimit() != null ? eventDto.getParticipantLimit() : 0)
                     .requestModeration(eventDto.getRequestModeration() != null ? eventDto.getRequestModeration() : true)
@@ -1,7 +1,9 @@
 package ru.yandex.practicum.model.mapper;
 
 import lombok.experimental.UtilityClass;
+import ru.yandex.practicum.enums.RequestStatus;
 import ru.yandex.practicum.model.Request;
+import ru.yandex.practicum.model.RequestCreation;
 import ru.yandex.practicum.model.dto.EventRequestStatusUpdateResultDto;
 import ru.yandex.practicum.model.dto.ParticipationRequestDto;
 
@@ -11,27 +13,45 @@ import java.util.stream.Collectors;
 @UtilityClass
 public class RequestMapper {
     public static ParticipationRequestDto toParticipationRequestDto(Request request) {
+        return request != null ? toParticipationRequestDto(request, request.getStatus()) : null;
+    }
+
+    public static ParticipationRequestDto toParticipationRequestDto(Request request, RequestStatus status) {
         if (request != null) {
             return ParticipationRequestDto.builder()
                     .created(request.getCreated())
                     .event(request.getEvent().getId())
                     .id(request.getId())
                     .requester(request.getRequester().getId())
-                    .status(request.getStatus().name())
+                    .status(status.name())
                     .build();
         } else {
             return null;
         }
     }
 
+    public static ParticipationRequestDto toParticipationRequestDto(RequestCreation creation, Long userId,
+                                                                    Long eventId) {
+        return ParticipationRequestDto.builder()
+                .created(creation.getCreated())
+                .event(eventId)
+                .id(creation.getRequestId())
+                .requester(userId)
+                .status(creation.getStatus().name())
+                .build();
+    }
+
+    /**
+     * Статусы заявок в результате берутся из того, в какой список они попали, а не из сущностей.
+     */
     public static EventRequestStatusUpdateResultDto toEventRequestStatusUpdateResultDto(
             List<Request> confirmedRequests, List<Request> rejectedRequests) {
         return EventRequestStatusUpdateResultDto.builder()
                 .confirmedRequests(confirmedRequests.stream()
-                        .map(RequestMapper::toParticipationRequestDto)
+                        .map(request -> toParticipationRequestDto(request, RequestStatus.CONFIRMED))
                         .collect(Collectors.toList()))
                 .rejectedRequests(rejectedRequests.stream()
-                        .map(RequestMapper::toParticipationRequestDto)
+                        .map(request -> toParticipationRequestDto(request, RequestStatus.REJECTED))
                         .collect(Collectors.toList()))
                 .build();
     }
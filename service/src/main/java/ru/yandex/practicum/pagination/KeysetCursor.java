@@ -0,0 +1,143 @@
+package ru.yandex.practicum.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.yandex.practicum.exceptions.ValidationException;
+
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Курсор продолжения для постраничной выборки по ключу (sortKey, id): хранит значение ключа сортировки и id
+ * последней строки страницы. Следующая страница выбирается условием "строго после" по индексу (sortKey, id),
+ * поэтому ее стоимость не зависит от глубины. Для клиента курсор - непрозрачная строка.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class KeysetCursor {
+    public static final String HEADER = "X-Next-Cursor";
+    public static final String ID = "id";
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortKey;
+    private final String value;
+    private final Long id;
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return new KeysetCursor(parts[0], parts[1].isEmpty() ? null : parts[1], Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный курсор продолжения: " + token);
+        }
+    }
+
+    public String encode() {
+        String raw = sortKey + SEPARATOR + (value == null ? "" : value) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Курсор после последнего элемента полной страницы, отсортированной по id, или null, если страница последняя.
+     */
+    public static <T> String next(List<T> page, int pageSize, Function<T, Long> id) {
+        return next(page, pageSize, ID, item -> null, id);
+    }
+
+    /**
+     * Курсор после последнего элемента полной страницы или null, если страница последняя.
+     */
+    public static <T> String next(List<T> page, int pageSize, String sortKey, Function<T, Object> sortValue,
+                                  Function<T, Long> id) {
+        if (page.isEmpty() || page.size() < pageSize) {
+            return null;
+        }
+        T last = page.get(page.size() - 1);
+        Object value = ID.equals(sortKey) ? null : sortValue.apply(last);
+        return new KeysetCursor(sortKey, value == null ? null : value.toString(), id.apply(last)).encode();
+    }
+
+    /**
+     * Условие "строго после курсора" для страницы с курсором или null. Сортировка страницы должна начинаться
+     * с ключа курсора, направления ключа и id берутся из нее.
+     */
+    public static <T> Specification<T> after(Pageable pageable) {
+        if (!(pageable instanceof OffsetPageRequest) || ((OffsetPageRequest) pageable).getCursor() == null) {
+            return null;
+        }
+        KeysetCursor cursor = ((OffsetPageRequest) pageable).getCursor();
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(null);
+        if (order == null || !order.getProperty().equals(cursor.getSortKey())) {
+            throw new ValidationException("Курсор продолжения не соответствует сортировке: " + cursor.getSortKey());
+        }
+        boolean descending = order.isDescending();
+        boolean idDescending = isIdDescending(pageable.getSort(), order);
+        return (root, query, criteriaBuilder) -> {
+            Path<Long> idPath = root.get(ID);
+            Predicate afterId = idDescending
+                    ? criteriaBuilder.lessThan(idPath, cursor.getId())
+                    : criteriaBuilder.greaterThan(idPath, cursor.getId());
+            if (ID.equals(cursor.getSortKey())) {
+                return afterId;
+            }
+            Path<Comparable<Object>> keyPath = root.get(cursor.getSortKey());
+            Comparable<Object> value = cursor.parseValue(keyPath.getJavaType());
+            // Нестрогое условие по ключу задает начало диапазона сканирования индекса (sortKey, id).
+            return descending
+                    ? criteriaBuilder.and(criteriaBuilder.lessThanOrEqualTo(keyPath, value),
+                    criteriaBuilder.or(criteriaBuilder.lessThan(keyPath, value), afterId))
+                    : criteriaBuilder.and(criteriaBuilder.greaterThanOrEqualTo(keyPath, value),
+                    criteriaBuilder.or(criteriaBuilder.greaterThan(keyPath, value), afterId));
+        };
+    }
+
+    /**
+     * Направление id внутри равных значений ключа: из сортировки, а если id в ней нет - как у ключа.
+     */
+    public static boolean isIdDescending(Sort sort, Sort.Order keyOrder) {
+        Sort.Order idOrder = sort.getOrderFor(ID);
+        return idOrder == null ? keyOrder.isDescending() : idOrder.isDescending();
+    }
+
+    /**
+     * Значение ключа курсора, приведенное к типу свойства сортировки.
+     */
+    @SuppressWarnings("unchecked")
+    public Comparable<Object> parseValue(Class<?> type) {
+        if (value == null) {
+            throw new ValidationException("Курсор продолжения не содержит значения ключа " + sortKey + ".");
+        }
+        try {
+            if (LocalDateTime.class.equals(type)) {
+                return (Comparable<Object>) (Comparable<?>) LocalDateTime.parse(value);
+            }
+            if (Long.class.equals(type)) {
+                return (Comparable<Object>) (Comparable<?>) Long.valueOf(value);
+            }
+            if (Integer.class.equals(type)) {
+                return (Comparable<Object>) (Comparable<?>) Integer.valueOf(value);
+            }
+            if (String.class.equals(type)) {
+                return (Comparable<Object>) (Comparable<?>) value;
+            }
+        } catch (RuntimeException e) {
+            throw new ValidationException("Некорректное значение ключа " + sortKey + " в курсоре продолжения: " + value);
+        }
+        throw new ValidationException("Сортировка по ключу " + sortKey + " не поддерживает курсор продолжения.");
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.pagination;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Страница, заданная смещением from и размером size, а не номером страницы: from не обязан быть кратен size.
+ * Может нести курсор продолжения - тогда выборка начинается сразу после последней строки предыдущей страницы.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class OffsetPageRequest implements Pageable {
+    private final long offset;
+    private final int pageSize;
+    private final Sort sort;
+    private final KeysetCursor cursor;
+
+    private OffsetPageRequest(long offset, int pageSize, Sort sort, KeysetCursor cursor) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Смещение не может быть отрицательным: " + offset);
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + pageSize);
+        }
+        this.offset = offset;
+        this.pageSize = pageSize;
+        this.sort = sort;
+        this.cursor = cursor;
+    }
+
+    public static OffsetPageRequest of(int from, int size) {
+        return new OffsetPageRequest(from, size, Sort.unsorted(), null);
+    }
+
+    public static OffsetPageRequest of(int from, int size, Sort sort) {
+        return new OffsetPageRequest(from, size, sort, null);
+    }
+
+    /**
+     * Страница по смещению или, если передан курсор продолжения, страница после него.
+     */
+    public static OffsetPageRequest of(int from, int size, Sort sort, String cursor) {
+        return cursor == null || cursor.isBlank() ? of(from, size, sort) : after(KeysetCursor.decode(cursor), size, sort);
+    }
+
+    /**
+     * Страница после курсора. Смещение from при этом не применяется.
+     */
+    public static OffsetPageRequest after(KeysetCursor cursor, int size, Sort sort) {
+        return new OffsetPageRequest(0, size, sort, cursor);
+    }
+
+    @Override
+    public int getPageNumber() {
+        return (int) (offset / pageSize);
+    }
+
+    @Override
+    public Pageable next() {
+        return new OffsetPageRequest(offset + pageSize, pageSize, sort, cursor);
+    }
+
+    @Override
+    public Pageable previousOrFirst() {
+        return hasPrevious() ? new OffsetPageRequest(Math.max(0, offset - pageSize), pageSize, sort, cursor) : first();
+    }
+
+    @Override
+    public Pageable first() {
+        return new OffsetPageRequest(0, pageSize, sort, cursor);
+    }
+
+    @Override
+    public Pageable withPage(int pageNumber) {
+        return new OffsetPageRequest((long) pageNumber * pageSize, pageSize, sort, cursor);
+    }
+
+    @Override
+    public boolean hasPrevious() {
+        return offset > 0;
+    }
+}
@@ -1,13 +1,20 @@
 package ru.yandex.practicum.repository;
 
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.model.Compilation;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
-    List<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
+    @Query("SELECT DISTINCT c FROM Compilation c LEFT JOIN FETCH c.events e " +
+            "LEFT JOIN FETCH e.category LEFT JOIN FETCH e.initiator")
+    List<Compilation> findAllWithEvents();
+
+    @Query("SELECT DISTINCT c FROM Compilation c LEFT JOIN FETCH c.events e " +
+            "LEFT JOIN FETCH e.category LEFT JOIN FETCH e.initiator WHERE c.id IN ?1")
+    List<Compilation> findAllWithEventsByIdIn(Collection<Long> ids);
 }
@@ -1,18 +1,69 @@
 package ru.yandex.practicum.repository;
 
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.enums.EventState;
 import ru.yandex.practicum.model.Event;
+import ru.yandex.practicum.model.EventGeoPoint;
+import ru.yandex.practicum.model.EventText;
 
+import javax.persistence.LockModeType;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Long> {
+public interface EventRepository extends JpaRepository<Event, Long>, EventRepositoryCustom {
+    @EntityGraph(Event.WITH_CATEGORY_AND_INITIATOR)
     List<Event> findAll(Specification<Event> specification, Pageable pageable);
 
+    @EntityGraph(Event.WITH_CATEGORY_AND_INITIATOR)
+    Page<Event> findAll(Pageable pageable);
+
+    @EntityGraph(Event.WITH_CATEGORY_AND_INITIATOR)
     List<Event> findAllByInitiatorId(Long userId, Pageable pageable);
 
+    @EntityGraph(Event.WITH_CATEGORY_AND_INITIATOR)
+    List<Event> findAllById(Iterable<Long> ids);
+
+    @EntityGraph(Event.WITH_CATEGORY_AND_INITIATOR)
+    Optional<Event> findById(Long id);
+
     List<Event> findAllByCategoryId(Long catId);
+
+    @Query("SELECT e.id AS id, e.location.lat AS lat, e.location.lon AS lon FROM Event e " +
+            "WHERE e.state = ?1 AND e.location.lat IS NOT NULL AND e.location.lon IS NOT NULL")
+    List<EventGeoPoint> findAllGeoPoints(EventState state);
+
+    @Query("SELECT e.id AS id, e.title AS title, e.annotation AS annotation, e.description AS description " +
+            "FROM Event e WHERE e.state = ?1")
+    List<EventText> findAllTexts(EventState state);
+
+    /**
+     * Загружает событие с блокировкой строки до конца транзакции: резервирование мест другими транзакциями
+     * ждет ее завершения.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Event e WHERE e.id = ?1")
+    Optional<Event> findByIdForUpdate(Long eventId);
+
+    /**
+     * Занимает count мест, только если они помещаются в лимит участников: условие проверяется в самом UPDATE
+     * на актуальной версии строки. Возвращает 0, если мест не хватило.
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests + ?2 WHERE e.id = ?1 " +
+            "AND (e.participantLimit = 0 OR e.confirmedRequests + ?2 <= e.participantLimit)")
+    int increaseConfirmedRequests(Long eventId, int count);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests - 1 WHERE e.id = ?1 " +
+            "AND e.confirmedRequests > 0")
+    int releaseSeat(Long eventId);
 }
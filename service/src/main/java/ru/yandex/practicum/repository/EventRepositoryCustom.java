@@ -0,0 +1,29 @@
+package ru.yandex.practicum.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import ru.yandex.practicum.model.Event;
+import ru.yandex.practicum.model.dto.EventShortDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface EventRepositoryCustom {
+
+    List<EventShortDto> findAllShort(Specification<Event> specification, Pageable pageable);
+
+    /**
+     * Страница опубликованных событий среди кандидатов полнотекстового поиска, выбранная одним запросом.
+     * Кандидаты передаются массивом в порядке убывания релевантности; если сортировка страницы не задана,
+     * события упорядочиваются по релевантности.
+     */
+    List<EventShortDto> findAllShortPublishedAmong(List<Long> rankedIds, List<Long> categories, Boolean paid,
+                                                   LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                   boolean onlyAvailable, Pageable pageable);
+
+    /**
+     * Записывает просмотры событий пакетами UPDATE, возвращает количество измененных строк.
+     */
+    int updateViews(Map<Long, Long> views, int batchSize);
+}
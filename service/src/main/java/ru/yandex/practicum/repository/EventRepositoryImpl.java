@@ -0,0 +1,263 @@
+package ru.yandex.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.exceptions.ValidationException;
+import ru.yandex.practicum.model.Category;
+import ru.yandex.practicum.model.Event;
+import ru.yandex.practicum.model.User;
+import ru.yandex.practicum.model.dto.CategoryDto;
+import ru.yandex.practicum.model.dto.EventShortDto;
+import ru.yandex.practicum.model.dto.UserDto;
+import ru.yandex.practicum.pagination.KeysetCursor;
+import ru.yandex.practicum.pagination.OffsetPageRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class EventRepositoryImpl implements EventRepositoryCustom {
+    private static final String UPDATE_VIEWS_SQL =
+            "UPDATE events SET views = ? WHERE id = ? AND views IS DISTINCT FROM ?";
+
+    private static final String CANDIDATES_SQL = "SELECT e.id, e.annotation, e.confirmed_requests, e.event_date, " +
+            "e.paid, e.title, e.views, e.rating, c.id AS category_id, c.name AS category_name, " +
+            "u.id AS initiator_id, u.name AS initiator_name, u.email AS initiator_email, " +
+            "u.rating AS initiator_rating " +
+            "FROM unnest(CAST(:ids AS bigint[])) WITH ORDINALITY AS candidate (id, rank) " +
+            "JOIN events e ON e.id = candidate.id " +
+            "JOIN categories c ON c.id = e.category_id " +
+            "JOIN users u ON u.id = e.user_id " +
+            "WHERE e.state = 'PUBLISHED' AND e.event_date > :rangeStart";
+    private static final Map<String, String> COLUMNS = Map.of(
+            "id", "e.id",
+            "eventDate", "e.event_date",
+            "views", "e.views",
+            "rating", "e.rating");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Выбирает только колонки краткого представления события вместе с категорией и инициатором
+     * и собирает из них DTO. Сущности не загружаются в контекст персистентности.
+     */
+    @Override
+    public List<EventShortDto> findAllShort(Specification<Event> specification, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Event> root = query.from(Event.class);
+        Join<Event, Category> category = root.join("category");
+        Join<Event, User> initiator = root.join("initiator");
+
+        query.multiselect(
+                root.get("id").alias("id"),
+                root.get("annotation").alias("annotation"),
+                root.get("confirmedRequests").alias("confirmedRequests"),
+                root.get("eventDate").alias("eventDate"),
+                root.get("paid").alias("paid"),
+                root.get("title").alias("title"),
+                root.get("views").alias("views"),
+                root.get("rating").alias("rating"),
+                category.get("id").alias("categoryId"),
+                category.get("name").alias("categoryName"),
+                initiator.get("id").alias("initiatorId"),
+                initiator.get("name").alias("initiatorName"),
+                initiator.get("email").alias("initiatorEmail"),
+                initiator.get("rating").alias("initiatorRating"));
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<Tuple> tuples = typedQuery.getResultList();
+        List<EventShortDto> events = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            events.add(toEventShortDto(tuple));
+        }
+        return events;
+    }
+
+    /**
+     * Кандидаты соединяются с events как массив с порядковыми номерами, поэтому запрос один при любом
+     * количестве кандидатов, а сортировка и смещение выполняются в БД. Курсор продолжения применяется
+     * только при явной сортировке.
+     */
+    @Override
+    public List<EventShortDto> findAllShortPublishedAmong(List<Long> rankedIds, List<Long> categories, Boolean paid,
+                                                          LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                          boolean onlyAvailable, Pageable pageable) {
+        if (rankedIds.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder sql = new StringBuilder(CANDIDATES_SQL);
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("ids", rankedIds.stream().mapToLong(Long::longValue).toArray())
+                .addValue("rangeStart", rangeStart);
+        if (rangeEnd != null) {
+            sql.append(" AND e.event_date < :rangeEnd");
+            parameters.addValue("rangeEnd", rangeEnd);
+        }
+        if (categories != null) {
+            if (categories.isEmpty()) {
+                return List.of();
+            }
+            sql.append(" AND e.category_id IN (:categories)");
+            parameters.addValue("categories", categories);
+        }
+        if (paid != null) {
+            sql.append(" AND e.paid = :paid");
+            parameters.addValue("paid", paid);
+        }
+        if (onlyAvailable) {
+            sql.append(" AND e.participant_limit >= 0");
+        }
+        appendCursor(sql, parameters, pageable);
+        sql.append(" ORDER BY ");
+        if (pageable.getSort().isSorted()) {
+            sql.append(pageable.getSort().stream()
+                    .map(order -> toColumn(order.getProperty()) + (order.isDescending() ? " DESC" : " ASC"))
+                    .collect(Collectors.joining(", ")));
+        } else {
+            sql.append("candidate.rank");
+        }
+        if (pageable.isPaged()) {
+            sql.append(" LIMIT :limit OFFSET :offset");
+            parameters.addValue("limit", pageable.getPageSize()).addValue("offset", pageable.getOffset());
+        }
+        return namedParameterJdbcTemplate.query(sql.toString(), parameters, (rs, rowNum) -> EventShortDto.builder()
+                .id(rs.getLong("id"))
+                .annotation(rs.getString("annotation"))
+                .category(CategoryDto.builder()
+                        .id(rs.getLong("category_id"))
+                        .name(rs.getString("category_name"))
+                        .build())
+                .confirmedRequests(rs.getObject("confirmed_requests", Integer.class))
+                .eventDate(rs.getObject("event_date", LocalDateTime.class))
+                .initiator(UserDto.builder()
+                        .id(rs.getLong("initiator_id"))
+                        .name(rs.getString("initiator_name"))
+                        .email(rs.getString("initiator_email"))
+                        .rating(rs.getObject("initiator_rating", Long.class))
+                        .build())
+                .paid(rs.getObject("paid", Boolean.class))
+                .title(rs.getString("title"))
+                .views(rs.getObject("views", Long.class))
+                .rating(rs.getObject("rating", Long.class))
+                .build());
+    }
+
+    /**
+     * Условие "строго после курсора" по ключу (sortKey, id), как в KeysetCursor.after. При одинаковом направлении
+     * ключа и id - сравнение строк.
+     */
+    private static void appendCursor(StringBuilder sql, MapSqlParameterSource parameters, Pageable pageable) {
+        if (!(pageable instanceof OffsetPageRequest) || ((OffsetPageRequest) pageable).getCursor() == null) {
+            return;
+        }
+        KeysetCursor cursor = ((OffsetPageRequest) pageable).getCursor();
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(null);
+        if (order == null || !order.getProperty().equals(cursor.getSortKey())) {
+            throw new ValidationException("Курсор продолжения не соответствует сортировке: " + cursor.getSortKey());
+        }
+        String comparison = order.isDescending() ? " < " : " > ";
+        String idComparison = KeysetCursor.isIdDescending(pageable.getSort(), order) ? " < " : " > ";
+        parameters.addValue("cursorId", cursor.getId());
+        if (KeysetCursor.ID.equals(cursor.getSortKey())) {
+            sql.append(" AND e.id").append(idComparison).append(":cursorId");
+            return;
+        }
+        Class<?> type = "eventDate".equals(cursor.getSortKey()) ? LocalDateTime.class : Long.class;
+        parameters.addValue("cursorValue", cursor.parseValue(type));
+        String column = toColumn(cursor.getSortKey());
+        if (comparison.equals(idComparison)) {
+            sql.append(" AND (").append(column).append(", e.id)").append(comparison)
+                    .append("(:cursorValue, :cursorId)");
+            return;
+        }
+        sql.append(" AND ").append(column).append(order.isDescending() ? " <= " : " >= ").append(":cursorValue AND (")
+                .append(column).append(comparison).append(":cursorValue OR e.id").append(idComparison)
+                .append(":cursorId)");
+    }
+
+    private static String toColumn(String property) {
+        String column = COLUMNS.get(property);
+        if (column == null) {
+            throw new IllegalArgumentException("Неизвестное свойство сортировки событий: " + property);
+        }
+        return column;
+    }
+
+    /**
+     * Строки, в которых значение не изменилось, не перезаписываются.
+     */
+    @Override
+    @Transactional
+    public int updateViews(Map<Long, Long> views, int batchSize) {
+        int updated = 0;
+        for (int[] batch : jdbcTemplate.batchUpdate(UPDATE_VIEWS_SQL, views.entrySet(), batchSize, (ps, entry) -> {
+            ps.setLong(1, entry.getValue());
+            ps.setLong(2, entry.getKey());
+            ps.setLong(3, entry.getValue());
+        })) {
+            for (int count : batch) {
+                updated += Math.max(count, 0);
+            }
+        }
+        return updated;
+    }
+
+    private EventShortDto toEventShortDto(Tuple tuple) {
+        return EventShortDto.builder()
+                .id(tuple.get("id", Long.class))
+                .annotation(tuple.get("annotation", String.class))
+                .category(CategoryDto.builder()
+                        .id(tuple.get("categoryId", Long.class))
+                        .name(tuple.get("categoryName", String.class))
+                        .build())
+                .confirmedRequests(tuple.get("confirmedRequests", Integer.class))
+                .eventDate(tuple.get("eventDate", LocalDateTime.class))
+                .initiator(UserDto.builder()
+                        .id(tuple.get("initiatorId", Long.class))
+                        .name(tuple.get("initiatorName", String.class))
+                        .email(tuple.get("initiatorEmail", String.class))
+                        .rating(tuple.get("initiatorRating", Long.class))
+                        .build())
+                .paid(tuple.get("paid", Boolean.class))
+                .title(tuple.get("title", String.class))
+                .views(tuple.get("views", Long.class))
+                .rating(tuple.get("rating", Long.class))
+                .build();
+    }
+}
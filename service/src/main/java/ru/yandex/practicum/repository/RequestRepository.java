@@ -1,19 +1,24 @@
 package ru.yandex.practicum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.enums.RequestStatus;
 import ru.yandex.practicum.model.Request;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface RequestRepository extends JpaRepository<Request, Long> {
+public interface RequestRepository extends JpaRepository<Request, Long>, RequestRepositoryCustom {
     List<Request> findAllByEventId(Long eventId);
 
     List<Request> findAllByRequesterId(Long userId);
 
     List<Request> findAllByRequesterIdAndEventIdAndStatus(Long userId, Long eventId, RequestStatus status);
 
-    boolean existsByRequesterIdAndEventId(Long requesterId, Long eventId);
+    @Modifying
+    @Query("UPDATE Request r SET r.status = ?2 WHERE r.id IN ?1")
+    int updateStatus(Collection<Long> ids, RequestStatus status);
 }
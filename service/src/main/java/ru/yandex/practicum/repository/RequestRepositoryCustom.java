@@ -0,0 +1,14 @@
+package ru.yandex.practicum.repository;
+
+import ru.yandex.practicum.model.RequestCreation;
+
+import java.time.LocalDateTime;
+
+public interface RequestRepositoryCustom {
+
+    /**
+     * Одним запросом проверяет пользователя и событие, создает заявку и, если заявка подтверждается
+     * без модерации, занимает место в событии.
+     */
+    RequestCreation create(Long userId, Long eventId, LocalDateTime created);
+}
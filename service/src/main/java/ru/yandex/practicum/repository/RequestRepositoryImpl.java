@@ -0,0 +1,80 @@
+package ru.yandex.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.enums.EventState;
+import ru.yandex.practicum.enums.RequestStatus;
+import ru.yandex.practicum.model.RequestCreation;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+@RequiredArgsConstructor
+public class RequestRepositoryImpl implements RequestRepositoryCustom {
+    /**
+     * Заявка вставляется, только если событие опубликовано, пользователь не инициатор и лимит не исчерпан;
+     * повтор отсекается уникальным индексом (user_id, event_id). Место занимается условным UPDATE,
+     * который под конкуренцией перепроверяет лимит на актуальной версии строки события.
+     * Итоговый SELECT видит таблицы до изменений, поэтому duplicate означает ранее существовавшую заявку.
+     */
+    private static final String CREATE_REQUEST_SQL = "WITH requester AS (" +
+            "SELECT id FROM users WHERE id = :userId" +
+            "), target AS (" +
+            "SELECT id, user_id, state, participant_limit, confirmed_requests, request_moderation " +
+            "FROM events WHERE id = :eventId" +
+            "), inserted AS (" +
+            "INSERT INTO requests (created, status, event_id, user_id) " +
+            "SELECT :created, " +
+            "CASE WHEN t.participant_limit = 0 OR NOT t.request_moderation THEN 'CONFIRMED' ELSE 'PENDING' END, " +
+            "t.id, r.id " +
+            "FROM target t CROSS JOIN requester r " +
+            "WHERE t.state = 'PUBLISHED' AND t.user_id <> r.id " +
+            "AND (t.participant_limit = 0 OR t.confirmed_requests < t.participant_limit) " +
+            "ON CONFLICT (user_id, event_id) DO NOTHING " +
+            "RETURNING id, created, status" +
+            "), reserved AS (" +
+            "UPDATE events e SET confirmed_requests = e.confirmed_requests + 1 " +
+            "FROM inserted i " +
+            "WHERE e.id = :eventId AND NOT e.request_moderation " +
+            "AND (e.participant_limit = 0 OR e.confirmed_requests < e.participant_limit) " +
+            "RETURNING e.id" +
+            ") " +
+            "SELECT EXISTS (SELECT 1 FROM requester) AS user_found, " +
+            "t.id AS event_id, t.user_id AS initiator_id, t.state, t.participant_limit, t.confirmed_requests, " +
+            "t.request_moderation, " +
+            "EXISTS (SELECT 1 FROM requests q WHERE q.user_id = :userId AND q.event_id = :eventId) AS duplicate, " +
+            "i.id AS request_id, i.created, i.status, " +
+            "EXISTS (SELECT 1 FROM reserved) AS seat_reserved " +
+            "FROM (VALUES (1)) AS one (x) " +
+            "LEFT JOIN target t ON TRUE " +
+            "LEFT JOIN inserted i ON TRUE";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public RequestCreation create(Long userId, Long eventId, LocalDateTime created) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("eventId", eventId)
+                .addValue("created", Timestamp.valueOf(created));
+        return namedParameterJdbcTemplate.queryForObject(CREATE_REQUEST_SQL, parameters, (rs, rowNum) -> {
+            String state = rs.getString("state");
+            String status = rs.getString("status");
+            Timestamp requestCreated = rs.getTimestamp("created");
+            return new RequestCreation(
+                    rs.getBoolean("user_found"),
+                    rs.getObject("event_id") != null,
+                    rs.getObject("initiator_id", Long.class),
+                    state != null ? EventState.valueOf(state) : null,
+                    rs.getObject("participant_limit", Integer.class),
+                    rs.getObject("confirmed_requests", Integer.class),
+                    rs.getBoolean("request_moderation"),
+                    rs.getBoolean("duplicate"),
+                    rs.getObject("request_id", Long.class),
+                    requestCreated != null ? requestCreated.toLocalDateTime() : null,
+                    status != null ? RequestStatus.valueOf(status) : null,
+                    rs.getBoolean("seat_reserved"));
+        });
+    }
+}
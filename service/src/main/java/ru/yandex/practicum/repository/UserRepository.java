@@ -1,16 +1,16 @@
 package ru.yandex.practicum.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.model.User;
 
-import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findAllByEmail(String email);
 
-    List<User> findAllByIdIn(Collection<Long> ids, Pageable pageable);
+    List<User> findAll(Specification<User> specification, Pageable pageable);
 }
@@ -5,8 +5,6 @@ import ru.yandex.practicum.model.dto.CompilationDto;
 import ru.yandex.practicum.model.dto.NewCompilationDto;
 import ru.yandex.practicum.model.dto.UpdateCompilationRequestDto;
 
-import java.util.List;
-
 public interface CompilationService {
     CompilationDto addCompilation(NewCompilationDto compilationDto);
 
@@ -14,7 +12,9 @@ public interface CompilationService {
 
     CompilationDto updateCompilation(Long compId, UpdateCompilationRequestDto compilationDto);
 
-    List<CompilationDto> getAllCompilations(Boolean pinned, Pageable pageable);
+    byte[] getAllCompilationsJson(Boolean pinned, Pageable pageable);
 
     CompilationDto getCompilationById(Long compId);
+
+    byte[] getCompilationByIdJson(Long compId);
 }
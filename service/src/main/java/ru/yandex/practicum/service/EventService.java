@@ -2,7 +2,6 @@ package ru.yandex.practicum.service;
 
 import org.springframework.data.domain.Pageable;
 import ru.yandex.practicum.enums.EventSortType;
-import ru.yandex.practicum.enums.RatingSortType;
 import ru.yandex.practicum.model.dto.*;
 
 import javax.servlet.http.HttpServletRequest;
@@ -23,6 +22,8 @@ public interface EventService {
                                            LocalDateTime rangeEnd, Boolean onlyAvailable, EventSortType sort,
                                            Pageable pageable, HttpServletRequest request);
 
+    List<EventShortDto> getEventsNearby(Double lat, Double lon, Double radius, Integer from, Integer size);
+
     List<EventShortDto> getAllEventsCreatedByUser(Long userId, Pageable pageable);
 
     EventFullDto addEvent(Long userId, NewEventDto eventDto);
@@ -31,5 +32,5 @@ public interface EventService {
 
     EventFullDto updateEventCreatedByUser(Long userId, Long eventId, UpdateEventUserRequestDto eventDto);
 
-    List<EventShortDto> getAllEventsSortedByRating(RatingSortType sort, Pageable pageable, HttpServletRequest request);
+    List<EventShortDto> getAllEventsSortedByRating(Pageable pageable, HttpServletRequest request);
 }
@@ -1,7 +1,6 @@
 package ru.yandex.practicum.service;
 
 import org.springframework.data.domain.Pageable;
-import ru.yandex.practicum.enums.RatingSortType;
 import ru.yandex.practicum.model.dto.UserDto;
 
 import java.util.List;
@@ -13,5 +12,5 @@ public interface UserService {
 
     void deleteUserById(Long userId);
 
-    List<UserDto> getAllUsersSortedByRating(RatingSortType sort, Pageable pageable);
+    List<UserDto> getAllUsersSortedByRating(Pageable pageable);
 }
@@ -2,12 +2,14 @@ package ru.yandex.practicum.service.impl;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.exceptions.ConflictException;
 import ru.yandex.practicum.exceptions.NotFoundException;
 import ru.yandex.practicum.model.Category;
+import ru.yandex.practicum.model.CategoryChangedEvent;
 import ru.yandex.practicum.model.Event;
 import ru.yandex.practicum.model.dto.CategoryDto;
 import ru.yandex.practicum.model.mapper.CategoryMapper;
@@ -25,6 +27,7 @@ import java.util.stream.Collectors;
 public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final EventRepository eventRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Override
@@ -69,6 +72,7 @@ public class CategoryServiceImpl implements CategoryService {
         categoryDto.setId(catId);
 
         Category categoryUpd = categoryRepository.save(CategoryMapper.toCategory(categoryDto));
+        eventPublisher.publishEvent(new CategoryChangedEvent(catId));
         log.info("Категория обновлена в базе данных в таблице categories по ID: {} \n {}", catId, categoryUpd);
 
         return CategoryMapper.toCategoryDto(categoryUpd);
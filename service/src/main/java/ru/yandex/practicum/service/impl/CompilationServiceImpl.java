@@ -2,11 +2,14 @@ package ru.yandex.practicum.service.impl;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.cache.CompilationSnapshotStore;
 import ru.yandex.practicum.exceptions.NotFoundException;
 import ru.yandex.practicum.model.Compilation;
+import ru.yandex.practicum.model.CompilationChangedEvent;
 import ru.yandex.practicum.model.Event;
 import ru.yandex.practicum.model.dto.CompilationDto;
 import ru.yandex.practicum.model.dto.NewCompilationDto;
@@ -25,6 +28,8 @@ import java.util.stream.Collectors;
 public class CompilationServiceImpl implements CompilationService {
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
+    private final CompilationSnapshotStore compilationSnapshotStore;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Override
@@ -36,6 +41,7 @@ public class CompilationServiceImpl implements CompilationService {
         }
 
         Compilation compilationDb = compilationRepository.save(CompilationMapper.toCompilation(compilationDto, events));
+        eventPublisher.publishEvent(new CompilationChangedEvent(compilationDb.getId()));
         log.info("Подборка добавлена в базу данных в таблицу compilations по ID: {} \n {}", compilationDb.getId(), compilationDb);
         return CompilationMapper.toCompilationDto(compilationDb);
     }
@@ -46,6 +52,7 @@ public class CompilationServiceImpl implements CompilationService {
         Compilation compilation = compilationRepository.findById(compId)
                 .orElseThrow(() -> new NotFoundException("Подборка по ID: " + compId + " не найдена."));
         compilationRepository.deleteById(compId);
+        eventPublisher.publishEvent(new CompilationChangedEvent(compId));
         log.info("Подборка удалена из базы данных из таблицы compilations по ID: {} \n {}", compId, compilation);
     }
 
@@ -67,25 +74,14 @@ public class CompilationServiceImpl implements CompilationService {
         }
 
         Compilation compilationUpd = compilationRepository.saveAndFlush(compilation);
+        eventPublisher.publishEvent(new CompilationChangedEvent(compId));
         log.info("Подборка обновлена в базе данных в таблице compilations по ID: {} \n {}", compId, compilationUpd);
         return CompilationMapper.toCompilationDto(compilationUpd);
     }
 
-    @Transactional(readOnly = true)
     @Override
-    public List<CompilationDto> getAllCompilations(Boolean pinned, Pageable pageable) {
-        List<CompilationDto> compilations;
-        if (pinned != null) {
-            compilations = compilationRepository.findAllByPinned(pinned, pageable).stream()
-                    .map(CompilationMapper::toCompilationDto)
-                    .collect(Collectors.toList());
-        } else {
-            compilations = compilationRepository.findAll(pageable).stream()
-                    .map(CompilationMapper::toCompilationDto)
-                    .collect(Collectors.toList());
-        }
-        log.info("Получено {} подборок из базы данных из таблицы compilations.", compilations.size());
-        return compilations;
+    public byte[] getAllCompilationsJson(Boolean pinned, Pageable pageable) {
+        return compilationSnapshotStore.getAll(pinned, pageable);
     }
 
     @Transactional(readOnly = true)
@@ -97,6 +93,11 @@ public class CompilationServiceImpl implements CompilationService {
         return CompilationMapper.toCompilationDto(compilation);
     }
 
+    @Override
+    public byte[] getCompilationByIdJson(Long compId) {
+        return compilationSnapshotStore.get(compId);
+    }
+
     private boolean isEventsChanged(Compilation compilation,
                                     UpdateCompilationRequestDto updateCompilationRequestDto) {
         return updateCompilationRequestDto.getEvents() != null &&
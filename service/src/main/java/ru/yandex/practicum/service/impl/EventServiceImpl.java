@@ -1,26 +1,35 @@
 package ru.yandex.practicum.service.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.http.ResponseEntity;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.HitReporter;
 import ru.yandex.practicum.StatsClient;
+import ru.yandex.practicum.cache.PublishedEventCache;
+import ru.yandex.practicum.config.EventViewsProperties;
+import ru.yandex.practicum.config.StatsFanOutProperties;
 import ru.yandex.practicum.exceptions.ConflictException;
 import ru.yandex.practicum.exceptions.NotFoundException;
 import ru.yandex.practicum.exceptions.ValidationException;
 import ru.yandex.practicum.model.Category;
+import ru.yandex.practicum.index.EventGeoIndex;
+import ru.yandex.practicum.index.EventTextIndex;
 import ru.yandex.practicum.model.Event;
-import ru.yandex.practicum.model.EventViewStats;
+import ru.yandex.practicum.model.EventChangedEvent;
 import ru.yandex.practicum.model.User;
 import ru.yandex.practicum.model.dto.*;
 import ru.yandex.practicum.enums.*;
 import ru.yandex.practicum.model.mapper.EventMapper;
+import ru.yandex.practicum.model.mapper.LocationMapper;
+import ru.yandex.practicum.pagination.KeysetCursor;
+import ru.yandex.practicum.pagination.OffsetPageRequest;
 import ru.yandex.practicum.repository.CategoryRepository;
 import ru.yandex.practicum.repository.EventRepository;
 import ru.yandex.practicum.repository.UserRepository;
@@ -30,6 +39,9 @@ import javax.servlet.http.HttpServletRequest;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -37,11 +49,24 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 @Slf4j
 public class EventServiceImpl implements EventService {
+    /**
+     * Начало окна подсчета просмотров списков событий. Хиты по uri события не могут быть раньше его создания,
+     * поэтому общая постоянная граница дает тот же результат, что и минимальная дата создания на странице.
+     */
+    public static final LocalDateTime VIEWS_START = LocalDateTime.of(2000, 1, 1, 0, 0);
+
     private final EventRepository eventRepository;
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
     private final StatsClient statsClient;
-    private final ObjectMapper objectMapper;
+    private final HitReporter hitReporter;
+    private final EventGeoIndex eventGeoIndex;
+    private final EventTextIndex eventTextIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EventViewsProperties viewsProperties;
+    private final PublishedEventCache publishedEventCache;
+    private final StatsFanOutProperties fanOutProperties;
+    private final ThreadPoolTaskExecutor statsExecutor;
 
     @SneakyThrows
     @Transactional(readOnly = true)
@@ -55,8 +80,14 @@ public class EventServiceImpl implements EventService {
                     (root, query, criteriaBuilder) -> root.get("initiator").get("id").in(users));
         }
         if (states != null) {
+            // Сравнение с enum, а не с приведенной к строке колонкой, чтобы условие использовало индекс по state.
+            List<EventState> eventStates = Arrays.stream(EventState.values())
+                    .filter(state -> states.contains(state.name()))
+                    .collect(Collectors.toList());
             specification = specification.and(
-                    (root, query, criteriaBuilder) -> root.get("state").as(String.class).in(states));
+                    (root, query, criteriaBuilder) -> eventStates.isEmpty()
+                            ? criteriaBuilder.disjunction()
+                            : root.get("state").in(eventStates));
         }
         if (categories != null) {
             specification = specification.and(
@@ -72,7 +103,7 @@ public class EventServiceImpl implements EventService {
                     (root, query, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(root.get("eventDate"),
                             rangeEnd));
         }
-
+        specification = specification.and(KeysetCursor.after(pageable));
 
         List<Event> events = eventRepository.findAll(specification, pageable);
         List<EventFullDto> eventsRes = new ArrayList<>();
@@ -96,32 +127,35 @@ public class EventServiceImpl implements EventService {
         return EventMapper.toEventFullDto(event);
     }
 
-    @SneakyThrows
-    @Transactional(readOnly = true)
+    /**
+     * Опубликованное событие берется из кэша, поэтому метод не открывает транзакцию: при промахе
+     * событие загружается вместе с категорией и инициатором одним запросом репозитория.
+     */
     @Override
     public EventFullDto getEventById(Long eventId, HttpServletRequest request) {
-        Event event = eventRepository.findById(eventId)
-                .orElseThrow(() -> new NotFoundException("Событие по ID: " + eventId + " не найдено."));
-
-        if (!event.getState().equals(EventState.PUBLISHED)) {
-            throw new NotFoundException("Событие по ID: " + eventId + " не найдено в опубликованных событиях.");
-        }
+        EventFullDto event = publishedEventCache.get(eventId, () -> loadPublishedEvent(eventId));
 
         String uri = request.getRequestURI();
-        statsClient.hit(uri, request.getRemoteAddr(), LocalDateTime.now());
+        hitReporter.report(uri, request.getRemoteAddr(), LocalDateTime.now());
 
-        ResponseEntity<Object> response = statsClient.getStats(event.getCreatedOn(),
-                event.getEventDate(), List.of(uri), true);
+        long views = publishedEventCache.getViews(eventId, () -> {
+            Long hits = statsClient.getHits(event.getCreatedOn(), event.getEventDate(), List.of(uri), true).get(uri);
+            return hits != null ? hits : Objects.requireNonNullElse(event.getViews(), 0L);
+        });
 
-        List<EventViewStats> list = objectMapper.readValue(
-                objectMapper.writeValueAsString(response.getBody()), new TypeReference<>() {
-                });
+        log.info("Событие по ID: {} получено: {}.", eventId, event);
+        return event.toBuilder()
+                .views(views + 1)
+                .build();
+    }
 
-        if (!list.isEmpty()) {
-            event.setViews(Long.valueOf(list.get(0).getHits()));
-        }
+    private EventFullDto loadPublishedEvent(Long eventId) {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new NotFoundException("Событие по ID: " + eventId + " не найдено."));
 
-        event.setViews(event.getViews() + 1);
+        if (!event.getState().equals(EventState.PUBLISHED)) {
+            throw new NotFoundException("Событие по ID: " + eventId + " не найдено в опубликованных событиях.");
+        }
         log.info("Событие по ID: {} получено из базы данных: {}.", eventId, event);
         return EventMapper.toEventFullDto(event);
     }
@@ -158,7 +192,7 @@ public class EventServiceImpl implements EventService {
             event.setEventDate(eventDto.getEventDate());
         }
         if (eventDto.getLocation() != null) {
-            event.setLocation(objectMapper.writeValueAsString(eventDto.getLocation()));
+            event.setLocation(LocationMapper.toLocation(eventDto.getLocation()));
         }
         if (eventDto.getPaid() != null) {
             event.setPaid(eventDto.getPaid());
@@ -180,6 +214,7 @@ public class EventServiceImpl implements EventService {
         }
 
         Event eventUpd = eventRepository.save(event);
+        eventPublisher.publishEvent(new EventChangedEvent(eventUpd));
         log.info("Событие обновлено в базе данных в таблице events по ID: {} \n {}", eventId, eventUpd);
         return EventMapper.toEventFullDto(eventUpd);
     }
@@ -196,13 +231,7 @@ public class EventServiceImpl implements EventService {
                 (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("state"),
                         EventState.PUBLISHED));
 
-        if (text != null) {
-            specification = specification.and((root, query, criteriaBuilder) -> criteriaBuilder.or(
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("annotation")),
-                            "%" + text.toLowerCase() + "%"),
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("description")),
-                            "%" + text.toLowerCase() + "%")));
-        }
+        List<Long> rankedIds = text != null ? eventTextIndex.search(text) : null;
         if (categories != null) {
             specification = specification.and(
                     (root, query, criteriaBuilder) -> root.get("category").get("id").in(categories));
@@ -231,23 +260,25 @@ public class EventServiceImpl implements EventService {
                     (root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(
                             root.get("participantLimit"), 0));
         }
+        specification = specification.and(KeysetCursor.after(pageable));
 
-        List<Event> events = eventRepository.findAll(specification, pageable);
-        statsClient.hit(request.getRequestURI(), request.getRemoteAddr(), LocalDateTime.now());
-
-        ResponseEntity<Object> response = getEventsViewStats(events);
-        List<EventViewStats> list = objectMapper.readValue(
-                objectMapper.writeValueAsString(response.getBody()),
-                new TypeReference<>() {
-                });
-
-        Map<Long, Long> eventsHits = getEventsHits(list);
-
-        events.forEach(event -> event.setViews(eventsHits.get(event.getId())));
+        hitReporter.report(request.getRequestURI(), request.getRemoteAddr(), LocalDateTime.now());
+        List<EventShortDto> eventsRes;
+        if (rankedIds != null) {
+            // Без явной сортировки результаты текстового поиска упорядочиваются по релевантности.
+            eventsRes = eventRepository.findAllShortPublishedAmong(rankedIds, categories, paid, startDateTime,
+                    rangeEnd, onlyAvailable != null && onlyAvailable, sort == null
+                            ? OffsetPageRequest.of((int) pageable.getOffset(), pageable.getPageSize())
+                            : pageable);
+        } else {
+            eventsRes = eventRepository.findAllShort(specification, pageable);
+        }
 
-        List<EventShortDto> eventsRes = events.stream()
-                .map(EventMapper::toEventShortDto)
-                .collect(Collectors.toList());
+        // Страница по просмотрам упорядочена по колонке events.views: ее значения и отдаются клиенту,
+        // чтобы порядок совпадал с выдачей, а курсор продолжения строился по тому же ключу, что и индекс.
+        if (sort != EventSortType.VIEWS) {
+            setShortEventsViewsWithinBudget(eventsRes);
+        }
 
         log.info("Получено {} событий из базы данных из таблицы events.", eventsRes.size());
         return eventsRes;
@@ -256,50 +287,43 @@ public class EventServiceImpl implements EventService {
     @SneakyThrows
     @Transactional(readOnly = true)
     @Override
-    public List<EventShortDto> getAllEventsSortedByRating(RatingSortType sort, Pageable pageable, HttpServletRequest request) {
-        List<Event> events = new ArrayList<>();
-        switch (sort) {
-            case ASC:
-                events = eventRepository.findAll(pageable).stream()
-                        .sorted(Comparator.comparing(Event::getRating).thenComparing(Event::getId))
-                        .collect(Collectors.toList());
-                break;
-            case DESC:
-                events = eventRepository.findAll(pageable).stream()
-                        .sorted(Comparator.comparing(Event::getRating).reversed().thenComparing(Event::getId))
-                        .collect(Collectors.toList());
-                break;
-        }
-
-        statsClient.hit(request.getRequestURI(), request.getRemoteAddr(), LocalDateTime.now());
+    public List<EventShortDto> getAllEventsSortedByRating(Pageable pageable, HttpServletRequest request) {
+        hitReporter.report(request.getRequestURI(), request.getRemoteAddr(), LocalDateTime.now());
+        List<EventShortDto> eventsRes = eventRepository.findAllShort(
+                Specification.where(KeysetCursor.after(pageable)), pageable);
 
-        ResponseEntity<Object> response = getEventsViewStats(events);
-        List<EventViewStats> list = objectMapper.readValue(
-                objectMapper.writeValueAsString(response.getBody()),
-                new TypeReference<>() {
-                });
-
-        Map<Long, Long> eventsHits = getEventsHits(list);
-
-        events.forEach(event -> event.setViews(eventsHits.get(event.getId())));
-
-        List<EventShortDto> eventsRes = events.stream()
-                .map(EventMapper::toEventShortDto)
-                .collect(Collectors.toList());
+        setShortEventsViewsWithinBudget(eventsRes);
 
         log.info("Получено {} событий из базы данных из таблицы events.", eventsRes.size());
         return eventsRes;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<EventShortDto> getEventsNearby(Double lat, Double lon, Double radius, Integer from, Integer size) {
+        List<Long> ids = eventGeoIndex.findNearby(lat, lon, radius, from + size);
+        if (ids.size() <= from) {
+            return List.of();
+        }
+        List<Long> pageIds = ids.subList(from, ids.size());
+        List<EventShortDto> events = orderByIds(pageIds, eventRepository.findAllShort(
+                (root, query, criteriaBuilder) -> root.get("id").in(pageIds), Pageable.unpaged()));
+        setShortEventsViews(events);
+
+        log.info("Найдено {} событий в радиусе {} км от точки ({}, {}).", events.size(), radius, lat, lon);
+        return events;
+    }
+
     @Transactional(readOnly = true)
     @Override
     public List<EventShortDto> getAllEventsCreatedByUser(Long userId, Pageable pageable) {
         userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь по ID: " + userId + " не найден."));
 
-        List<EventShortDto> events = eventRepository.findAllByInitiatorId(userId, pageable).stream()
-                .map(EventMapper::toEventShortDto)
-                .collect(Collectors.toList());
+        Specification<Event> specification = Specification.<Event>where(
+                (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("initiator").get("id"), userId))
+                .and(KeysetCursor.after(pageable));
+        List<EventShortDto> events = eventRepository.findAllShort(specification, pageable);
 
         log.info("Получено {} событий из базы данных из таблицы events.", events.size());
         return events;
@@ -330,6 +354,7 @@ public class EventServiceImpl implements EventService {
         event.setRating(0L);
 
         Event eventDb = eventRepository.save(event);
+        eventPublisher.publishEvent(new EventChangedEvent(eventDb));
         log.info("Событие добавлено в базу данных в таблицу events по ID: {} \n {}", eventDb.getId(), eventDb);
         return EventMapper.toEventFullDto(eventDb);
     }
@@ -401,7 +426,7 @@ public class EventServiceImpl implements EventService {
             event.setTitle(eventDto.getTitle());
         }
         if (eventDto.getLocation() != null) {
-            event.setLocation(objectMapper.writeValueAsString(eventDto.getLocation()));
+            event.setLocation(LocationMapper.toLocation(eventDto.getLocation()));
         }
         if (eventDto.getStateAction() != null) {
             EventState status = eventDto.getStateAction().equals(RequestStateAction.CANCEL_REVIEW)
@@ -411,6 +436,7 @@ public class EventServiceImpl implements EventService {
         }
 
         Event eventUpd = eventRepository.save(event);
+        eventPublisher.publishEvent(new EventChangedEvent(eventUpd));
         log.info("Событие обновлено в базе данных в таблице events по ID: {} \n {}", eventId, eventUpd);
         return EventMapper.toEventFullDto(eventUpd);
     }
@@ -419,33 +445,69 @@ public class EventServiceImpl implements EventService {
         return Duration.between(LocalDateTime.now(), eventDate).toHours() < 2L;
     }
 
-    private ResponseEntity<Object> getEventsViewStats(List<Event> events) {
-        String[] uri = getStatsUrisByEvents(events);
-        LocalDateTime start = getStartDateTimeForStatsView(events);
-        return statsClient.getStats(start, LocalDateTime.now(), List.of(uri), true);
+    private void setShortEventsViews(List<EventShortDto> events) {
+        if (events.isEmpty() || !viewsProperties.isLiveLookup()) {
+            return;
+        }
+        Map<String, Long> hits = statsClient.getHits(VIEWS_START, LocalDateTime.now(), getStatsUris(events), true);
+        events.forEach(event -> event.setViews(hits.get(getStatsUri(event.getId()))));
     }
 
-    private LocalDateTime getStartDateTimeForStatsView(List<Event> events) {
-        return events.stream()
-                .map(Event::getCreatedOn)
-                .sorted()
-                .findFirst()
-                .orElseThrow();
+    /**
+     * Запрашивает просмотры в пуле statsExecutor и ждет их не дольше ewm.stats-fan-out.latency-budget.
+     * Если сервер статистики не ответил вовремя или пул переполнен, остаются значения колонки events.views.
+     */
+    private void setShortEventsViewsWithinBudget(List<EventShortDto> events) {
+        if (!fanOutProperties.isEnabled()) {
+            setShortEventsViews(events);
+            return;
+        }
+        if (events.isEmpty() || !viewsProperties.isLiveLookup()) {
+            return;
+        }
+        List<String> uris = getStatsUris(events);
+        CompletableFuture<Map<String, Long>> lookup;
+        try {
+            lookup = CompletableFuture.supplyAsync(
+                    () -> statsClient.getHits(VIEWS_START, LocalDateTime.now(), uris, true), statsExecutor);
+        } catch (TaskRejectedException e) {
+            log.debug("Пул запросов к серверу статистики переполнен, используются сохраненные просмотры.");
+            return;
+        }
+        Map<String, Long> hits = lookup
+                .completeOnTimeout(null, fanOutProperties.getLatencyBudget().toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> null)
+                .join();
+        if (hits == null) {
+            log.debug("Просмотры не получены за {}, используются сохраненные просмотры.",
+                    fanOutProperties.getLatencyBudget());
+            return;
+        }
+        events.forEach(event -> event.setViews(hits.get(getStatsUri(event.getId()))));
     }
 
-    private String[] getStatsUrisByEvents(List<Event> events) {
-        return events.stream()
-                .map(it -> "/events/" + it.getId())
-                .toArray(String[]::new);
+    private List<String> getStatsUris(List<EventShortDto> events) {
+        List<String> uris = new ArrayList<>(events.size());
+        for (EventShortDto event : events) {
+            uris.add(getStatsUri(event.getId()));
+        }
+        return uris;
     }
 
-    private Map<Long, Long> getEventsHits(List<EventViewStats> list) {
-        Map<Long, Long> hits = new HashMap<>();
-        for (EventViewStats eventViewStats : list) {
-            String[] temp = eventViewStats.getUri().split("/");
-            Long eventId = Long.parseLong(temp[temp.length - 1]);
-            hits.put(eventId, Long.valueOf(eventViewStats.getHits()));
+    private List<EventShortDto> orderByIds(List<Long> ids, List<EventShortDto> events) {
+        Map<Long, EventShortDto> found = events.stream()
+                .collect(Collectors.toMap(EventShortDto::getId, Function.identity()));
+        List<EventShortDto> ordered = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            EventShortDto event = found.get(id);
+            if (event != null) {
+                ordered.add(event);
+            }
         }
-        return hits;
+        return ordered;
+    }
+
+    private String getStatsUri(Long eventId) {
+        return "/events/" + eventId;
     }
 }
@@ -2,12 +2,15 @@ package ru.yandex.practicum.service.impl;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.exceptions.ConflictException;
 import ru.yandex.practicum.exceptions.NotFoundException;
 import ru.yandex.practicum.model.Event;
+import ru.yandex.practicum.model.EventChangedEvent;
 import ru.yandex.practicum.model.Request;
+import ru.yandex.practicum.model.RequestCreation;
 import ru.yandex.practicum.model.User;
 import ru.yandex.practicum.model.dto.EventRequestStatusUpdateRequestDto;
 import ru.yandex.practicum.model.dto.EventRequestStatusUpdateResultDto;
@@ -20,9 +23,9 @@ import ru.yandex.practicum.repository.RequestRepository;
 import ru.yandex.practicum.repository.UserRepository;
 import ru.yandex.practicum.service.RequestService;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,6 +35,7 @@ public class RequestServiceImpl implements RequestService {
     private final RequestRepository requestRepository;
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     @Override
@@ -59,7 +63,8 @@ public class RequestServiceImpl implements RequestService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь по ID: " + userId + " не найден."));
 
-        Event event = eventRepository.findById(eventId)
+        // Строка события блокируется, чтобы число свободных мест не изменилось до подтверждения заявок.
+        Event event = eventRepository.findByIdForUpdate(eventId)
                 .orElseThrow(() -> new NotFoundException("Событие по ID: " + eventId + " не найдено."));
 
         List<Request> requests = requestRepository.findAllById(eventDto.getRequestIds());
@@ -72,43 +77,30 @@ public class RequestServiceImpl implements RequestService {
             throw new ConflictException("Ошибка валидации изменения статуса запроса.");
         }
 
-        List<Request> confirmedRequests = new ArrayList<>();
-        List<Request> rejectedRequests = new ArrayList<>();
-
-        AtomicReference<Integer> cntLeftConfirmations = new AtomicReference<>(
-                event.getParticipantLimit() - event.getConfirmedRequests());
-
-        if (eventDto.getStatus().equals(RequestStatus.REJECTED) || cntLeftConfirmations.get().equals(0)) {
-            rejectedRequests.addAll(requests);
-            requests.forEach(request -> {
-                request.setStatus(RequestStatus.REJECTED);
-                requestRepository.save(request);
-            });
-
-            EventRequestStatusUpdateResultDto eventRequestDto =
-                    RequestMapper.toEventRequestStatusUpdateResultDto(confirmedRequests, rejectedRequests);
-            log.info("Запрос на обновление статуса события {} пользователя {} получен из базы данных из таблицы requests: {}",
-                    eventId, userId, eventRequestDto);
-            return eventRequestDto;
+        List<Request> confirmedRequests = List.of();
+        List<Request> rejectedRequests = requests;
+
+        int cntLeftConfirmations = event.getParticipantLimit() - event.getConfirmedRequests();
+        if (eventDto.getStatus().equals(RequestStatus.CONFIRMED) && cntLeftConfirmations > 0) {
+            // Заявки подтверждаются в порядке id, пока есть свободные места, остальные отклоняются.
+            List<Request> sorted = requests.stream()
+                    .sorted(Comparator.comparing(Request::getId))
+                    .collect(Collectors.toList());
+            int cntConfirmed = Math.min(cntLeftConfirmations, sorted.size());
+            confirmedRequests = sorted.subList(0, cntConfirmed);
+            rejectedRequests = sorted.subList(cntConfirmed, sorted.size());
         }
 
-        requests.forEach(request -> {
-            if (cntLeftConfirmations.get() > 0) {
-                request.setStatus(eventDto.getStatus());
-                requestRepository.save(request);
-
-                event.setConfirmedRequests(event.getConfirmedRequests() + 1);
-                eventRepository.save(event);
-
-                confirmedRequests.add(request);
-                cntLeftConfirmations.getAndSet(cntLeftConfirmations.get() - 1);
-            } else {
-                request.setStatus(RequestStatus.REJECTED);
-                requestRepository.save(request);
-                rejectedRequests.add(request);
+        if (!confirmedRequests.isEmpty()) {
+            if (eventRepository.increaseConfirmedRequests(eventId, confirmedRequests.size()) == 0) {
+                throw new ConflictException("Лимит участников события по ID: " + eventId + " исчерпан.");
             }
-
-        });
+            requestRepository.updateStatus(getIds(confirmedRequests), RequestStatus.CONFIRMED);
+            eventPublisher.publishEvent(EventChangedEvent.confirmedRequestsChanged(event.getId()));
+        }
+        if (!rejectedRequests.isEmpty()) {
+            requestRepository.updateStatus(getIds(rejectedRequests), RequestStatus.REJECTED);
+        }
 
         EventRequestStatusUpdateResultDto eventRequestDto =
                 RequestMapper.toEventRequestStatusUpdateResultDto(confirmedRequests, rejectedRequests);
@@ -133,42 +125,28 @@ public class RequestServiceImpl implements RequestService {
     @Transactional
     @Override
     public ParticipationRequestDto addRequestByUser(Long userId, Long eventId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь по ID: " + userId + " не найден."));
-
-        Event event = eventRepository.findById(eventId)
-                .orElseThrow(() -> new NotFoundException("Событие по ID: " + eventId + " не найдено."));
+        RequestCreation creation = requestRepository.create(userId, eventId, LocalDateTime.now());
 
-        if (requestRepository.existsByRequesterIdAndEventId(userId, eventId)
-                || !event.getState().equals(EventState.PUBLISHED)
-                || (event.getParticipantLimit() > 0
-                && event.getConfirmedRequests().equals(event.getParticipantLimit()))
-                || event.getInitiator().getId().equals(userId)
-        ) {
-            throw new ConflictException("Ошибка валидации нового запроса.");
+        if (!creation.isUserFound()) {
+            throw new NotFoundException("Пользователь по ID: " + userId + " не найден.");
         }
-
-        RequestStatus status = RequestStatus.PENDING;
-        if (event.getParticipantLimit().equals(0) || !event.isRequestModeration()) {
-            status = RequestStatus.CONFIRMED;
+        if (!creation.isEventFound()) {
+            throw new NotFoundException("Событие по ID: " + eventId + " не найдено.");
         }
-
-        Request request = Request.builder()
-                .status(status)
-                .event(event)
-                .requester(user)
-                .build();
-
-        Request requestDb = requestRepository.save(request);
-        log.info("Запрос добавлен в базу данных в таблицу requests по ID: {} \n {}", requestDb.getId(), requestDb);
-
-        if (!event.isRequestModeration()) {
-            Integer cntConfirmedRequests = event.getConfirmedRequests();
-            event.setConfirmedRequests(cntConfirmedRequests + 1);
-            eventRepository.save(event);
+        if (creation.getRequestId() == null) {
+            throw new ConflictException(getRejectionReason(userId, eventId, creation));
+        }
+        if (!creation.isRequestModeration() && !creation.isSeatReserved()) {
+            // Место заняли параллельные заявки; вставленная заявка откатывается вместе с транзакцией.
+            throw new ConflictException("Лимит участников события по ID: " + eventId + " исчерпан.");
+        }
+        if (creation.isSeatReserved()) {
+            eventPublisher.publishEvent(EventChangedEvent.confirmedRequestsChanged(eventId));
         }
 
-        return RequestMapper.toParticipationRequestDto(requestDb);
+        ParticipationRequestDto request = RequestMapper.toParticipationRequestDto(creation, userId, eventId);
+        log.info("Запрос добавлен в базу данных в таблицу requests по ID: {} \n {}", request.getId(), request);
+        return request;
     }
 
     @Transactional
@@ -184,9 +162,8 @@ public class RequestServiceImpl implements RequestService {
                 .orElseThrow(() -> new NotFoundException("Событие по ID: " + request.getEvent().getId() + " не найдено."));
 
         if (request.getStatus().equals(RequestStatus.CONFIRMED)) {
-            Integer cntConfirmedRequests = event.getConfirmedRequests();
-            event.setConfirmedRequests(cntConfirmedRequests - 1);
-            eventRepository.save(event);
+            eventRepository.releaseSeat(event.getId());
+            eventPublisher.publishEvent(EventChangedEvent.confirmedRequestsChanged(event.getId()));
         }
 
         request.setStatus(RequestStatus.CANCELED);
@@ -196,6 +173,29 @@ public class RequestServiceImpl implements RequestService {
         return RequestMapper.toParticipationRequestDto(requestDb);
     }
 
+    private static String getRejectionReason(Long userId, Long eventId, RequestCreation creation) {
+        if (creation.isDuplicate()) {
+            return "Запрос пользователя ID: " + userId + " на участие в событии ID: " + eventId + " уже существует.";
+        }
+        if (creation.getState() != EventState.PUBLISHED) {
+            return "Событие по ID: " + eventId + " не опубликовано.";
+        }
+        if (creation.getInitiatorId().equals(userId)) {
+            return "Инициатор события по ID: " + eventId + " не может подать запрос на участие в нем.";
+        }
+        if (creation.getParticipantLimit() > 0
+                && creation.getConfirmedRequests() >= creation.getParticipantLimit()) {
+            return "Лимит участников события по ID: " + eventId + " исчерпан.";
+        }
+        return "Запрос пользователя ID: " + userId + " на участие в событии ID: " + eventId + " уже существует.";
+    }
+
+    private static List<Long> getIds(List<Request> requests) {
+        return requests.stream()
+                .map(Request::getId)
+                .collect(Collectors.toList());
+    }
+
     private boolean isValidRequestStatus(List<Request> requests) {
         return requests.stream()
                 .map(Request::getStatus)
@@ -1,22 +1,20 @@
 package ru.yandex.practicum.service.impl;
 
 import lombok.AllArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.yandex.practicum.enums.RatingSortType;
 import ru.yandex.practicum.exceptions.ConflictException;
 import ru.yandex.practicum.exceptions.NotFoundException;
 import ru.yandex.practicum.model.User;
 import ru.yandex.practicum.model.dto.UserDto;
 import ru.yandex.practicum.model.mapper.UserMapper;
+import ru.yandex.practicum.pagination.KeysetCursor;
 import ru.yandex.practicum.repository.UserRepository;
 import ru.yandex.practicum.service.UserService;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -41,16 +39,13 @@ public class UserServiceImpl implements UserService {
     @Transactional(readOnly = true)
     @Override
     public List<UserDto> getAllUsers(List<Long> ids, Pageable pageable) {
-        List<UserDto> users;
+        Specification<User> specification = Specification.where(KeysetCursor.after(pageable));
         if (ids != null && !ids.isEmpty()) {
-            users = userRepository.findAllByIdIn(ids, pageable).stream()
-                    .map(UserMapper::toUserDto)
-                    .collect(Collectors.toList());
-        } else {
-            users = userRepository.findAll(pageable).stream()
-                    .map(UserMapper::toUserDto)
-                    .collect(Collectors.toList());
+            specification = specification.and((root, query, criteriaBuilder) -> root.get("id").in(ids));
         }
+        List<UserDto> users = userRepository.findAll(specification, pageable).stream()
+                .map(UserMapper::toUserDto)
+                .collect(Collectors.toList());
         log.info("Получено {} пользователей из базы данных из таблицы users.", users.size());
         return users;
     }
@@ -64,25 +59,11 @@ public class UserServiceImpl implements UserService {
         log.info("Пользователь удален из базы данных из таблицы users по ID: {} \n {}", userId, user);
     }
 
-    @SneakyThrows
     @Transactional(readOnly = true)
     @Override
-    public List<UserDto> getAllUsersSortedByRating(RatingSortType sort, Pageable pageable) {
-        List<User> users = new ArrayList<>();
-        switch (sort) {
-            case ASC:
-                users = userRepository.findAll(pageable).stream()
-                        .sorted(Comparator.comparing(User::getRating).thenComparing(User::getId))
-                        .collect(Collectors.toList());
-                break;
-            case DESC:
-                users = userRepository.findAll(pageable).stream()
-                        .sorted(Comparator.comparing(User::getRating).reversed().thenComparing(User::getId))
-                        .collect(Collectors.toList());
-                break;
-        }
-
-        List<UserDto> usersRes = users.stream()
+    public List<UserDto> getAllUsersSortedByRating(Pageable pageable) {
+        List<UserDto> usersRes = userRepository.findAll(Specification.where(KeysetCursor.after(pageable)), pageable)
+                .stream()
                 .map(UserMapper::toUserDto)
                 .collect(Collectors.toList());
 
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.views;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import ru.yandex.practicum.StatsClient;
+import ru.yandex.practicum.config.EventViewsProperties;
+import ru.yandex.practicum.repository.EventRepository;
+import ru.yandex.practicum.service.impl.EventServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Переносит количество уникальных просмотров событий из сервера статистики в колонку events.views,
+ * чтобы БД могла сортировать и листать события по популярности.
+ * За один проход обновляются только события, по которым были хиты с прошлой синхронизации.
+ */
+@Component
+@Slf4j
+public class EventViewsSynchronizer {
+    private static final Pattern EVENT_URI = Pattern.compile("^/events/(\\d+)$");
+
+    private final StatsClient statsClient;
+    private final EventRepository eventRepository;
+    private final EventViewsProperties properties;
+
+    private volatile LocalDateTime syncedUntil;
+
+    public EventViewsSynchronizer(StatsClient statsClient, EventRepository eventRepository,
+                                  EventViewsProperties properties) {
+        this.statsClient = statsClient;
+        this.eventRepository = eventRepository;
+        this.properties = properties;
+    }
+
+    @Scheduled(initialDelayString = "${ewm.views.sync-interval:PT1M}",
+            fixedDelayString = "${ewm.views.sync-interval:PT1M}")
+    public void sync() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = syncedUntil == null
+                ? EventServiceImpl.VIEWS_START
+                : syncedUntil.minus(properties.getSyncLag());
+        Map<Long, Long> views = new HashMap<>();
+        try {
+            List<String> uris = new ArrayList<>();
+            for (String uri : statsClient.queryHits(from, now, List.of(), false).keySet()) {
+                if (EVENT_URI.matcher(uri).matches()) {
+                    uris.add(uri);
+                }
+            }
+            for (int i = 0; i < uris.size(); i += properties.getBatchSize()) {
+                List<String> batch = uris.subList(i, Math.min(i + properties.getBatchSize(), uris.size()));
+                statsClient.queryHits(EventServiceImpl.VIEWS_START, now, batch, true).forEach((uri, hits) -> {
+                    Matcher matcher = EVENT_URI.matcher(uri);
+                    if (matcher.matches()) {
+                        views.put(Long.valueOf(matcher.group(1)), hits);
+                    }
+                });
+            }
+        } catch (RestClientException e) {
+            log.warn("Синхронизация просмотров событий пропущена, сервер статистики недоступен: {}", e.getMessage());
+            return;
+        }
+        int updated = eventRepository.updateViews(views, properties.getBatchSize());
+        syncedUntil = now;
+        log.info("Синхронизированы просмотры событий с {}: получено {}, изменено {}.", from, views.size(), updated);
+    }
+}
@@ -12,6 +12,9 @@ create TABLE IF NOT EXISTS users (
     rating integer default 0
 );
 
+create INDEX IF NOT EXISTS users_rating_id_idx ON users (rating, id);
+create INDEX IF NOT EXISTS users_rating_desc_id_idx ON users (rating DESC, id);
+
 create TABLE IF NOT EXISTS categories (
     id      BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     name    varchar(100) NOT NULL UNIQUE
@@ -26,20 +29,29 @@ create TABLE IF NOT EXISTS events (
     description text,
     event_date timestamp not null,
     user_id BIGINT not null,
-    location varchar(100),
+    lat double precision,
+    lon double precision,
     paid boolean default false,
     participant_limit integer not null default 0,
     published_on timestamp,
     request_moderation boolean default true,
     state varchar(15),
     title varchar(100) NOT NULL,
-    views integer default 0,
+    views bigint default 0,
     rating integer default 0,
 
     CONSTRAINT fk_events_to_categories FOREIGN KEY (category_id) REFERENCES categories (id),
     CONSTRAINT fk_events_to_users FOREIGN KEY (user_id) REFERENCES users (id)
 );
 
+create INDEX IF NOT EXISTS events_event_date_id_idx ON events (event_date, id);
+create INDEX IF NOT EXISTS events_state_event_date_id_idx ON events (state, event_date, id);
+create INDEX IF NOT EXISTS events_category_id_event_date_idx ON events (category_id, event_date);
+create INDEX IF NOT EXISTS events_user_id_id_idx ON events (user_id, id);
+create INDEX IF NOT EXISTS events_rating_id_idx ON events (rating, id);
+create INDEX IF NOT EXISTS events_rating_desc_id_idx ON events (rating DESC, id);
+create INDEX IF NOT EXISTS events_views_id_idx ON events (views, id);
+
 create TABLE IF NOT EXISTS requests (
     id      BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     created    timestamp default current_timestamp,
@@ -48,9 +60,12 @@ create TABLE IF NOT EXISTS requests (
     user_id bigint,
 
     CONSTRAINT fk_requests_to_events FOREIGN KEY (event_id) REFERENCES events (id),
-    CONSTRAINT fk_requests_to_users FOREIGN KEY (user_id) REFERENCES users (id)
+    CONSTRAINT fk_requests_to_users FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT requests_user_event_uq UNIQUE (user_id, event_id)
 );
 
+create INDEX IF NOT EXISTS requests_event_id_idx ON requests (event_id);
+
 create TABLE IF NOT EXISTS compilations (
     id      BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     pinned    boolean default false,
@@ -68,4 +83,7 @@ create TABLE IF NOT EXISTS events_rating (
 
     CONSTRAINT fk_events_rating_to_events FOREIGN KEY (event_id) REFERENCES events (id),
     CONSTRAINT fk_events_rating_to_users FOREIGN KEY (user_id) REFERENCES users (id)
-);
\ No newline at end of file
+);
+
+create INDEX IF NOT EXISTS events_rating_event_id_idx ON events_rating (event_id);
+create INDEX IF NOT EXISTS events_rating_user_id_idx ON events_rating (user_id);
\ No newline at end of file
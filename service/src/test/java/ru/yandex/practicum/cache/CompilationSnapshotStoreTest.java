@@ -0,0 +1,93 @@
+package ru.yandex.practicum.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.yandex.practicum.enums.EventState;
+import ru.yandex.practicum.model.Category;
+import ru.yandex.practicum.model.Compilation;
+import ru.yandex.practicum.model.Event;
+import ru.yandex.practicum.model.EventChangedEvent;
+import ru.yandex.practicum.model.User;
+import ru.yandex.practicum.repository.CompilationRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Изменения событий не пересобирают подборки в потоке запроса: всплеск изменений схлопывается
+ * в одну пересборку в планировщике.
+ */
+class CompilationSnapshotStoreTest {
+    private final CompilationRepository compilationRepository = mock(CompilationRepository.class);
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private CompilationSnapshotStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new CompilationSnapshotStore(compilationRepository, new ObjectMapper().registerModule(
+                new JavaTimeModule()), mock(PlatformTransactionManager.class), taskScheduler, Duration.ofSeconds(1));
+        when(compilationRepository.findAllWithEvents()).thenReturn(List.of(compilation(0)));
+        store.rebuild();
+    }
+
+    @Test
+    void coalescesEventChangesIntoOneScheduledRefresh() {
+        for (int i = 0; i < 100; i++) {
+            store.onEventChanged(EventChangedEvent.confirmedRequestsChanged(1L));
+        }
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(task.capture(), any(Instant.class));
+        verify(compilationRepository, never()).findAllWithEventsByIdIn(anyCollection());
+
+        when(compilationRepository.findAllWithEventsByIdIn(List.of(1L))).thenReturn(List.of(compilation(5)));
+        task.getValue().run();
+
+        verify(compilationRepository, times(1)).findAllWithEventsByIdIn(anyCollection());
+        assertTrue(new String(store.get(1L), StandardCharsets.UTF_8).contains("\"confirmedRequests\":5"));
+
+        store.onEventChanged(EventChangedEvent.confirmedRequestsChanged(1L));
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void ignoresEventsOutsideCompilations() {
+        store.onEventChanged(EventChangedEvent.confirmedRequestsChanged(2L));
+
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    private static Compilation compilation(int confirmedRequests) {
+        Event event = Event.builder()
+                .id(1L)
+                .annotation("annotation")
+                .title("title")
+                .category(Category.builder().id(1L).name("concerts").build())
+                .initiator(User.builder().id(1L).name("user").email("user@mail.ru").rating(0L).build())
+                .confirmedRequests(confirmedRequests)
+                .eventDate(LocalDateTime.of(2030, 1, 1, 10, 0))
+                .paid(false)
+                .state(EventState.PUBLISHED)
+                .views(0L)
+                .rating(0L)
+                .build();
+        return Compilation.builder().id(1L).title("best").pinned(true).events(List.of(event)).build();
+    }
+}
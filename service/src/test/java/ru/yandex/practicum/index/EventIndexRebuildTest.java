@@ -0,0 +1,83 @@
+package ru.yandex.practicum.index;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.config.EventIndexProperties;
+import ru.yandex.practicum.enums.EventState;
+import ru.yandex.practicum.model.Event;
+import ru.yandex.practicum.model.EventChangedEvent;
+import ru.yandex.practicum.model.EventGeoPoint;
+import ru.yandex.practicum.model.EventText;
+import ru.yandex.practicum.model.Location;
+import ru.yandex.practicum.repository.EventRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Изменения событий, пришедшие во время перестройки индекса, не должны теряться при замене индекса.
+ */
+class EventIndexRebuildTest {
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final EventIndexProperties properties = new EventIndexProperties();
+
+    @Test
+    void geoIndexKeepsChangesMadeDuringRebuild() {
+        EventGeoIndex index = new EventGeoIndex(eventRepository, properties);
+        index.onEventChanged(new EventChangedEvent(event(1L, EventState.PUBLISHED)));
+        when(eventRepository.findAllGeoPoints(EventState.PUBLISHED)).thenAnswer(invocation -> {
+            index.onEventChanged(new EventChangedEvent(event(1L, EventState.CANCELED)));
+            index.onEventChanged(new EventChangedEvent(event(2L, EventState.PUBLISHED)));
+            return List.of(geoPoint(1L));
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(2L), index.findNearby(55.0, 37.0, 10, 10));
+    }
+
+    @Test
+    void textIndexKeepsChangesMadeDuringRebuild() {
+        EventTextIndex index = new EventTextIndex(eventRepository, properties);
+        index.onEventChanged(new EventChangedEvent(event(1L, EventState.PUBLISHED)));
+        when(eventRepository.findAllTexts(EventState.PUBLISHED)).thenAnswer(invocation -> {
+            index.onEventChanged(new EventChangedEvent(event(1L, EventState.CANCELED)));
+            index.onEventChanged(new EventChangedEvent(event(2L, EventState.PUBLISHED)));
+            return List.of(text(1L));
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(2L), index.search("concert"));
+    }
+
+    private static Event event(Long id, EventState state) {
+        return Event.builder()
+                .id(id)
+                .title("Concert " + id)
+                .annotation("Annotation")
+                .description("Description")
+                .location(new Location(55.0, 37.0))
+                .state(state)
+                .build();
+    }
+
+    private static EventGeoPoint geoPoint(Long id) {
+        EventGeoPoint point = mock(EventGeoPoint.class);
+        when(point.getId()).thenReturn(id);
+        when(point.getLat()).thenReturn(55.0);
+        when(point.getLon()).thenReturn(37.0);
+        return point;
+    }
+
+    private static EventText text(Long id) {
+        EventText text = mock(EventText.class);
+        when(text.getId()).thenReturn(id);
+        when(text.getTitle()).thenReturn("Concert " + id);
+        when(text.getAnnotation()).thenReturn("Annotation");
+        when(text.getDescription()).thenReturn("Description");
+        return text;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.EmbeddedPostgresTest;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет на PostgreSQL, что запросы, которые строят спецификации EventServiceImpl и RequestServiceImpl,
+ * используют предназначенные для них индексы и не переходят на последовательное сканирование events и requests.
+ * Схема создается Hibernate из сущностей вместе с объявленными индексами; данные засеиваются в объеме,
+ * при котором планировщик выбирает индекс, только если он подходит. Данные засеиваются один раз на класс
+ * вне транзакций тестов.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EventQueryPlanTest extends EmbeddedPostgresTest {
+    private static final int USERS = 1_000;
+    private static final int CATEGORIES = 50;
+    private static final int EVENTS = 50_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (name, email, rating) " +
+                "SELECT 'user' || g, 'user' || g || '@mail.ru', g % 100 FROM generate_series(1, ?) g", USERS);
+        jdbcTemplate.update("INSERT INTO categories (name) SELECT 'category' || g FROM generate_series(1, ?) g",
+                CATEGORIES);
+        jdbcTemplate.update("INSERT INTO events (annotation, category_id, confirmed_requests, created_on, " +
+                "description, event_date, user_id, lat, lon, paid, participant_limit, request_moderation, " +
+                "state, title, views, rating) " +
+                "SELECT 'annotation', (SELECT min(id) FROM categories) + g % " + CATEGORIES + ", 0, " +
+                "now() - g * interval '1 minute', 'description', now() + (g % 2000 - 1000) * interval '1 hour', " +
+                "(SELECT min(id) FROM users) + g % " + USERS + ", 55.0, 37.0, g % 2 = 0, g % 10, true, " +
+                "(ARRAY['PENDING', 'PUBLISHED', 'CANCELED'])[1 + g % 3], 'title', g % 500, g % 100 " +
+                "FROM generate_series(1, ?) g", EVENTS);
+        jdbcTemplate.update("INSERT INTO requests (created, status, event_id, user_id) " +
+                "SELECT now(), 'PENDING', (SELECT min(id) FROM events) + g % " + EVENTS + ", " +
+                "(SELECT min(id) FROM users) + g / " + EVENTS + " FROM generate_series(1, ?) g", 2 * EVENTS);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    static Stream<Arguments> queries() {
+        return Stream.of(
+                // GET /events: опубликованные будущие события по дате
+                Arguments.of("events_state_event_date_id_idx",
+                        "SELECT * FROM events WHERE state = 'PUBLISHED' AND event_date > now() " +
+                                "ORDER BY event_date, id LIMIT 10"),
+                // GET /events с категориями и paid
+                Arguments.of("events_state_event_date_id_idx",
+                        "SELECT * FROM events WHERE state = 'PUBLISHED' AND event_date > now() " +
+                                "AND category_id IN (3, 4) AND paid = true ORDER BY event_date, id LIMIT 10"),
+                // GET /events с продолжением по курсору (event_date, id)
+                Arguments.of("events_state_event_date_id_idx",
+                        "SELECT * FROM events WHERE state = 'PUBLISHED' AND event_date > now() " +
+                                "AND (event_date > now() + interval '10 days' " +
+                                "OR (event_date = now() + interval '10 days' AND id > 100)) " +
+                                "ORDER BY event_date, id LIMIT 10"),
+                // GET /events без сортировки: порядок по id
+                Arguments.of("events_pkey",
+                        "SELECT * FROM events WHERE state = 'PUBLISHED' AND event_date > now() ORDER BY id LIMIT 10"),
+                // GET /events?text=...: кандидаты полнотекстового поиска одним массивом
+                Arguments.of("events_pkey",
+                        "SELECT e.* FROM unnest(CAST(ARRAY(SELECT generate_series(1, 20000)) AS bigint[])) " +
+                                "WITH ORDINALITY AS candidate (id, rank) JOIN events e ON e.id = candidate.id " +
+                                "WHERE e.state = 'PUBLISHED' AND e.event_date > now() " +
+                                "ORDER BY e.event_date, e.id LIMIT 10"),
+                // GET /events?sort=VIEWS
+                Arguments.of("events_views_id_idx",
+                        "SELECT * FROM events WHERE state = 'PUBLISHED' AND event_date > now() " +
+                                "ORDER BY views DESC, id DESC LIMIT 10"),
+                // GET /admin/events: инициаторы, состояния, категории, диапазон дат
+                Arguments.of("events_category_id_event_date_idx",
+                        "SELECT * FROM events WHERE user_id IN (5, 6) AND state IN ('PENDING') " +
+                                "AND category_id IN (7) AND event_date >= now() " +
+                                "AND event_date <= now() + interval '30 days' ORDER BY id LIMIT 10"),
+                // GET /admin/events по категории и диапазону дат
+                Arguments.of("events_category_id_event_date_idx",
+                        "SELECT * FROM events WHERE category_id IN (7) AND event_date >= now() " +
+                                "AND event_date <= now() + interval '1 day' ORDER BY id LIMIT 10"),
+                // GET /users/{userId}/events
+                Arguments.of("events_user_id_id_idx",
+                        "SELECT * FROM events WHERE user_id = 5 ORDER BY id LIMIT 10"),
+                // GET /events/rating: рейтинг по убыванию, при равенстве id по возрастанию
+                Arguments.of("events_rating_desc_id_idx",
+                        "SELECT * FROM events ORDER BY rating DESC, id LIMIT 10"),
+                // GET /events/rating с продолжением по курсору (rating DESC, id)
+                Arguments.of("events_rating_desc_id_idx",
+                        "SELECT * FROM events WHERE rating <= 50 AND (rating < 50 OR id > 100) " +
+                                "ORDER BY rating DESC, id LIMIT 10"),
+                // GET /events/rating?sort=ASC
+                Arguments.of("events_rating_id_idx",
+                        "SELECT * FROM events ORDER BY rating, id LIMIT 10"),
+                // GET /users/rating
+                Arguments.of("users_rating_desc_id_idx",
+                        "SELECT * FROM users ORDER BY rating DESC, id LIMIT 10"),
+                // заявки события, заявка пользователя на событие, заявки пользователя
+                Arguments.of("requests_event_id_idx",
+                        "SELECT * FROM requests WHERE event_id = 77"),
+                Arguments.of("requests_user_event_uq",
+                        "SELECT * FROM requests WHERE user_id = 77 AND event_id = 78"),
+                Arguments.of("requests_user_event_uq",
+                        "SELECT * FROM requests WHERE user_id = 77")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("queries")
+    void usesIndex(String index, String sql) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+        assertFalse(plan.contains("Seq Scan"), () -> "Последовательное сканирование в плане\n" + sql + "\n" + plan);
+        assertTrue(plan.contains(" " + index + " "), () -> "Индекс " + index + " не используется\n" + sql + "\n" + plan);
+    }
+}
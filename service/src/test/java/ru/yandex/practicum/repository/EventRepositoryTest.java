@@ -0,0 +1,179 @@
+package ru.yandex.practicum.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.yandex.practicum.enums.EventState;
+import ru.yandex.practicum.enums.RatingSortType;
+import ru.yandex.practicum.model.Category;
+import ru.yandex.practicum.model.Event;
+import ru.yandex.practicum.model.Location;
+import ru.yandex.practicum.model.User;
+import ru.yandex.practicum.model.dto.EventShortDto;
+import ru.yandex.practicum.pagination.KeysetCursor;
+import ru.yandex.practicum.pagination.OffsetPageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверяет, что события загружаются вместе с категорией и инициатором: число запросов не зависит
+ * от количества событий, а не растет как 1 + 2N. Также проверяет постраничный обход по курсору продолжения.
+ */
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class EventRepositoryTest {
+    private static final int EVENTS = 20;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < EVENTS; i++) {
+            User user = entityManager.persist(User.builder().name("user" + i).email("user" + i + "@mail.ru")
+                    .rating(0L).build());
+            Category category = entityManager.persist(Category.builder().name("category" + i).build());
+            Event event = entityManager.persist(Event.builder()
+                    .annotation("annotation " + i)
+                    .description("description " + i)
+                    .title("title " + i)
+                    .category(category)
+                    .initiator(user)
+                    .confirmedRequests(0)
+                    .participantLimit(0)
+                    .createdOn(LocalDateTime.now())
+                    .eventDate(LocalDateTime.now().plusDays(i + 1))
+                    .location(new Location(55.0, 37.0))
+                    .paid(false)
+                    .state(EventState.PUBLISHED)
+                    .views(0L)
+                    .rating(0L)
+                    .build());
+            ids.add(event.getId());
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void findAllBySpecificationLoadsRelationsInOneStatement() {
+        Specification<Event> published = (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("state"),
+                EventState.PUBLISHED);
+
+        // Spring Data выполняет метод через findAll(Specification, Pageable) с Page: выборка и count-запрос.
+        assertEquals(2, countStatements(() -> eventRepository.findAll(published,
+                OffsetPageRequest.of(0, 5, Sort.by("id")))));
+        assertEquals(2, countStatements(() -> eventRepository.findAll(published,
+                OffsetPageRequest.of(0, EVENTS, Sort.by("id")))));
+    }
+
+    @Test
+    void findAllByPageableLoadsRelationsInOneStatement() {
+        assertEquals(2, countStatements(() -> eventRepository.findAll(OffsetPageRequest.of(0, 5)).getContent()));
+        assertEquals(2, countStatements(() -> eventRepository.findAll(OffsetPageRequest.of(0, EVENTS))
+                .getContent()));
+    }
+
+    @Test
+    void findAllByInitiatorIdLoadsRelationsInOneStatement() {
+        Long initiatorId = eventRepository.findById(ids.get(0)).orElseThrow().getInitiator().getId();
+        assertEquals(1, countStatements(() -> eventRepository.findAllByInitiatorId(initiatorId,
+                OffsetPageRequest.of(0, EVENTS))));
+    }
+
+    @Test
+    void findAllByIdLoadsRelationsInOneStatement() {
+        assertEquals(1, countStatements(() -> eventRepository.findAllById(ids.subList(0, 5))));
+        assertEquals(1, countStatements(() -> eventRepository.findAllById(ids)));
+    }
+
+    @Test
+    void findByIdLoadsRelationsInOneStatement() {
+        assertEquals(1, countStatements(() -> List.of(eventRepository.findById(ids.get(0)).orElseThrow())));
+    }
+
+    @Test
+    void findAllShortPagesByViewsCursorWithoutGapsAndDuplicates() {
+        for (int i = 0; i < EVENTS; i++) {
+            entityManager.find(Event.class, ids.get(i)).setViews((long) (i % 4));
+        }
+        entityManager.flush();
+        Sort order = Sort.by(Sort.Direction.DESC, "views", KeysetCursor.ID);
+        List<Long> expected = eventRepository.findAllShort(Specification.where(null),
+                OffsetPageRequest.of(0, EVENTS, order)).stream().map(EventShortDto::getId).collect(Collectors.toList());
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            OffsetPageRequest pageable = OffsetPageRequest.of(0, 3, order, cursor);
+            List<EventShortDto> page = eventRepository.findAllShort(
+                    Specification.where(KeysetCursor.after(pageable)), pageable);
+            page.forEach(event -> paged.add(event.getId()));
+            cursor = KeysetCursor.next(page, 3, "views", EventShortDto::getViews, EventShortDto::getId);
+        } while (cursor != null);
+
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void findAllShortPagesByRatingCursorWithIdAscendingAmongTies() {
+        for (int i = 0; i < EVENTS; i++) {
+            entityManager.find(Event.class, ids.get(i)).setRating((long) (i % 4));
+        }
+        entityManager.flush();
+        List<Long> expected = IntStream.range(0, EVENTS).boxed()
+                .sorted(Comparator.comparing((Integer i) -> i % 4).reversed().thenComparing(Comparator.naturalOrder()))
+                .map(ids::get)
+                .collect(Collectors.toList());
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            OffsetPageRequest pageable = OffsetPageRequest.of(0, 3, RatingSortType.DESC.toSort(), cursor);
+            List<EventShortDto> page = eventRepository.findAllShort(
+                    Specification.where(KeysetCursor.after(pageable)), pageable);
+            page.forEach(event -> paged.add(event.getId()));
+            cursor = KeysetCursor.next(page, 3, RatingSortType.RATING, EventShortDto::getRating, EventShortDto::getId);
+        } while (cursor != null);
+
+        assertEquals(expected, paged);
+    }
+
+    /**
+     * Выполняет загрузку на пустом контексте персистентности и без кэша второго уровня, обращается
+     * к категории и инициатору каждого события и возвращает число подготовленных запросов.
+     */
+    private long countStatements(Supplier<List<Event>> loader) {
+        entityManager.clear();
+        entityManager.getEntityManager().getEntityManagerFactory().getCache().evictAll();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        for (Event event : loader.get()) {
+            event.getCategory().getName();
+            event.getInitiator().getName();
+        }
+        return statistics.getPrepareStatementCount();
+    }
+}
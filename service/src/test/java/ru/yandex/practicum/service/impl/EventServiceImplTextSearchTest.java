@@ -0,0 +1,151 @@
+package ru.yandex.practicum.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.EmbeddedPostgresTest;
+import ru.yandex.practicum.enums.EventSortType;
+import ru.yandex.practicum.enums.EventState;
+import ru.yandex.practicum.index.EventTextIndex;
+import ru.yandex.practicum.model.Category;
+import ru.yandex.practicum.model.Event;
+import ru.yandex.practicum.model.Location;
+import ru.yandex.practicum.model.User;
+import ru.yandex.practicum.model.dto.EventShortDto;
+import ru.yandex.practicum.pagination.KeysetCursor;
+import ru.yandex.practicum.pagination.OffsetPageRequest;
+import ru.yandex.practicum.repository.CategoryRepository;
+import ru.yandex.practicum.repository.EventRepository;
+import ru.yandex.practicum.repository.UserRepository;
+import ru.yandex.practicum.service.EventService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Все кандидаты полнотекстового поиска передаются в БД одним запросом вместе с остальными фильтрами:
+ * события с низкой релевантностью, подходящие под фильтры, не должны теряться, а сортировка, смещение
+ * и курсор продолжения применяются ко всем кандидатам.
+ */
+@SpringBootTest(properties = {
+        "stats-client.url=http://localhost:1",
+        "ewm.views.live-lookup=false",
+        "ewm.stats-fan-out.enabled=false"
+})
+@Transactional
+class EventServiceImplTextSearchTest extends EmbeddedPostgresTest {
+    private static final int POPULAR_EVENTS = 25;
+    private static final int RARE_EVENTS = 3;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventTextIndex eventTextIndex;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Category rare;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(User.builder().name("user").email("user@mail.ru").rating(0L).build());
+        Category popular = categoryRepository.save(Category.builder().name("popular").build());
+        rare = categoryRepository.save(Category.builder().name("rare").build());
+        for (int i = 0; i < POPULAR_EVENTS; i++) {
+            save("Jazz concert " + i, "Concert annotation number " + i, "Description", popular, user, RARE_EVENTS + i);
+        }
+        for (int i = 0; i < RARE_EVENTS; i++) {
+            save("Evening " + i, "Annotation number " + i, "Ends with a concert", rare, user, i);
+        }
+        eventTextIndex.rebuild();
+    }
+
+    @Test
+    void findsLowRankedEventsMatchingFilters() {
+        List<EventShortDto> events = eventService.getAllEventsSorted("concert", List.of(rare.getId()), null, null,
+                null, null, null, OffsetPageRequest.of(0, 10, Sort.by("id")), new MockHttpServletRequest());
+
+        assertEquals(RARE_EVENTS, events.size());
+        events.forEach(event -> assertEquals(rare.getId(), event.getCategory().getId()));
+    }
+
+    @Test
+    void sortsAllCandidatesByEventDate() {
+        Sort byDate = Sort.by("eventDate", "id");
+        List<EventShortDto> events = eventService.getAllEventsSorted("concert", null, null, null, null, null,
+                EventSortType.EVENT_DATE, OffsetPageRequest.of(0, 5, byDate), new MockHttpServletRequest());
+
+        List<EventShortDto> expected = eventRepository.findAllShort(null, OffsetPageRequest.of(0, 5, byDate));
+        assertEquals(ids(expected), ids(events));
+        assertEquals(RARE_EVENTS, events.stream()
+                .filter(event -> event.getCategory().getId().equals(rare.getId()))
+                .count());
+    }
+
+    @Test
+    void pagesByRelevance() {
+        List<Long> ranked = eventTextIndex.search("concert");
+        List<EventShortDto> events = eventService.getAllEventsSorted("concert", null, null, null, null, null,
+                null, OffsetPageRequest.of(8, 5, Sort.by("id")), new MockHttpServletRequest());
+
+        assertEquals(ranked.subList(8, 13), ids(events));
+    }
+
+    @Test
+    void pagesSortedCandidatesByCursor() {
+        Sort byDate = Sort.by("eventDate", "id");
+        List<Long> expected = ids(eventRepository.findAllShort(null, OffsetPageRequest.of(0, 100, byDate)));
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            List<EventShortDto> page = eventService.getAllEventsSorted("concert", null, null, null, null, null,
+                    EventSortType.EVENT_DATE, OffsetPageRequest.of(0, 4, byDate, cursor),
+                    new MockHttpServletRequest());
+            paged.addAll(ids(page));
+            cursor = KeysetCursor.next(page, 4, "eventDate", EventShortDto::getEventDate, EventShortDto::getId);
+        } while (cursor != null);
+
+        assertEquals(expected, paged);
+    }
+
+    private void save(String title, String annotation, String description, Category category, User user,
+                      int daysFromNow) {
+        eventRepository.save(Event.builder()
+                .title(title)
+                .annotation(annotation)
+                .description(description)
+                .category(category)
+                .initiator(user)
+                .confirmedRequests(0)
+                .participantLimit(0)
+                .createdOn(LocalDateTime.now())
+                .eventDate(LocalDateTime.now().plusDays(daysFromNow + 1))
+                .location(new Location(55.0, 37.0))
+                .paid(false)
+                .state(EventState.PUBLISHED)
+                .views(0L)
+                .rating(0L)
+                .build());
+    }
+
+    private static List<Long> ids(List<EventShortDto> events) {
+        return events.stream().map(EventShortDto::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,201 @@
+package ru.yandex.practicum.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.EmbeddedPostgresTest;
+import ru.yandex.practicum.enums.EventState;
+import ru.yandex.practicum.enums.RequestStatus;
+import ru.yandex.practicum.exceptions.ConflictException;
+import ru.yandex.practicum.model.Category;
+import ru.yandex.practicum.model.Event;
+import ru.yandex.practicum.model.Location;
+import ru.yandex.practicum.model.Request;
+import ru.yandex.practicum.model.User;
+import ru.yandex.practicum.model.dto.EventRequestStatusUpdateRequestDto;
+import ru.yandex.practicum.repository.CategoryRepository;
+import ru.yandex.practicum.repository.EventRepository;
+import ru.yandex.practicum.repository.RequestRepository;
+import ru.yandex.practicum.repository.UserRepository;
+import ru.yandex.practicum.service.RequestService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Параллельные заявки на событие с лимитом без модерации и параллельное подтверждение заявок инициатором
+ * на PostgreSQL: подтверждается ровно столько заявок, сколько мест, а счетчик подтвержденных заявок
+ * не превышает лимит.
+ */
+@SpringBootTest(properties = {
+        "stats-client.url=http://localhost:1",
+        "ewm.views.live-lookup=false",
+        "ewm.stats-fan-out.enabled=false"
+})
+class RequestServiceImplConcurrencyTest extends EmbeddedPostgresTest {
+    private static final int LIMIT = 5;
+    private static final int REQUESTERS = 40;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RequestRepository requestRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> requesterIds = new ArrayList<>();
+    private Long initiatorId;
+    private Category category;
+    private Long eventId;
+
+    @BeforeEach
+    void setUp() {
+        User initiator = userRepository.save(User.builder().name("initiator").email("initiator@mail.ru")
+                .rating(0L).build());
+        for (int i = 0; i < REQUESTERS; i++) {
+            requesterIds.add(userRepository.save(User.builder().name("user" + i).email("user" + i + "@mail.ru")
+                    .rating(0L).build()).getId());
+        }
+        initiatorId = initiator.getId();
+        category = categoryRepository.save(Category.builder().name("concerts").build());
+        eventId = saveEvent(initiator, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE requests, events, categories, users RESTART IDENTITY CASCADE");
+    }
+
+    @Test
+    void addRequestByUserDoesNotOversellLimit() throws Exception {
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Long userId : requesterIds) {
+            tasks.add(() -> {
+                try {
+                    requestService.addRequestByUser(userId, eventId);
+                    confirmed.incrementAndGet();
+                } catch (ConflictException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        runConcurrently(tasks);
+
+        assertEquals(LIMIT, confirmed.get());
+        assertEquals(REQUESTERS - LIMIT, rejected.get());
+        List<Request> requests = requestRepository.findAllByEventId(eventId);
+        assertEquals(LIMIT, requests.size());
+        assertEquals(LIMIT, requests.stream().filter(request -> request.getStatus() == RequestStatus.CONFIRMED).count());
+        assertEquals(LIMIT, eventRepository.findById(eventId).orElseThrow().getConfirmedRequests());
+    }
+
+    @Test
+    void updateRequestsStatusDoesNotOversellLimit() throws Exception {
+        Long moderatedId = saveEvent(userRepository.findById(initiatorId).orElseThrow(), true);
+        List<Long> requestIds = new ArrayList<>();
+        for (Long userId : requesterIds) {
+            requestIds.add(requestRepository.save(Request.builder()
+                    .created(LocalDateTime.now())
+                    .status(RequestStatus.PENDING)
+                    .event(eventRepository.getReferenceById(moderatedId))
+                    .requester(userRepository.getReferenceById(userId))
+                    .build()).getId());
+        }
+        // Инициатор параллельно подтверждает заявки парами: мест меньше, чем заявок.
+        AtomicInteger confirmed = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < requestIds.size(); i += 2) {
+            EventRequestStatusUpdateRequestDto update = new EventRequestStatusUpdateRequestDto(
+                    requestIds.subList(i, i + 2), RequestStatus.CONFIRMED);
+            tasks.add(() -> {
+                try {
+                    confirmed.addAndGet(requestService.updateRequestsStatusForEventCreatedByUser(initiatorId,
+                            moderatedId, update).getConfirmedRequests().size());
+                } catch (ConflictException e) {
+                    // Места закончились до этой пары.
+                }
+                return null;
+            });
+        }
+
+        runConcurrently(tasks);
+
+        assertEquals(LIMIT, confirmed.get());
+        assertEquals(LIMIT, requestRepository.findAllByEventId(moderatedId).stream()
+                .filter(request -> request.getStatus() == RequestStatus.CONFIRMED)
+                .count());
+        assertEquals(LIMIT, eventRepository.findById(moderatedId).orElseThrow().getConfirmedRequests());
+    }
+
+    private Long saveEvent(User initiator, boolean requestModeration) {
+        return eventRepository.save(Event.builder()
+                .annotation("annotation")
+                .description("description")
+                .title("title")
+                .category(category)
+                .initiator(initiator)
+                .confirmedRequests(0)
+                .participantLimit(LIMIT)
+                .requestModeration(requestModeration)
+                .createdOn(LocalDateTime.now())
+                .publishedOn(LocalDateTime.now())
+                .eventDate(LocalDateTime.now().plusDays(1))
+                .location(new Location(55.0, 37.0))
+                .paid(false)
+                .state(EventState.PUBLISHED)
+                .views(0L)
+                .rating(0L)
+                .build()).getId();
+    }
+
+    /**
+     * Запускает задачи в отдельных потоках одновременно и ждет их завершения.
+     */
+    private static void runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -23,8 +23,18 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.GET, path, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(T body) {
-        return makeAndSendRequest(HttpMethod.POST, "/hit", null, body);
+    protected <R> R get(String path, Map<String, Object> parameters, Class<R> responseType) {
+        HttpEntity<Void> requestEntity = new HttpEntity<>(defaultHeaders());
+        return rest.exchange(path, HttpMethod.GET, requestEntity, responseType, parameters).getBody();
+    }
+
+    protected <T> ResponseEntity<Object> post(String path, T body) {
+        return makeAndSendRequest(HttpMethod.POST, path, null, body);
+    }
+
+    protected <T, R> R post(String path, T body, Class<R> responseType) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders());
+        return rest.exchange(path, HttpMethod.POST, requestEntity, responseType).getBody();
     }
 
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, @Nullable Map<String, Object> parameters, @Nullable T body) {
@@ -0,0 +1,187 @@
+package ru.yandex.practicum;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import ru.yandex.practicum.dto.HitDto;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отправка хитов в сервис статистики без ожидания в потоке запроса: хиты кладутся в ограниченный буфер,
+ * фоновый поток отправляет их пакетами на /hits с повторами и экспоненциальной задержкой со случайным разбросом.
+ * При переполнении буфера новые хиты отбрасываются.
+ */
+@Component
+@Slf4j
+public class HitReporter {
+    private final StatsClient statsClient;
+    private final StatsClientProperties.Report properties;
+    private final BlockingQueue<HitDto> queue;
+    private final Counter sentHits;
+    private final Counter droppedHits;
+    private final Counter failedHits;
+
+    private volatile boolean running;
+    private Thread sender;
+
+    public HitReporter(StatsClient statsClient, StatsClientProperties properties, MeterRegistry meterRegistry) {
+        this.statsClient = statsClient;
+        this.properties = properties.getReport();
+        this.queue = new ArrayBlockingQueue<>(this.properties.getCapacity());
+        this.sentHits = meterRegistry.counter("stats.client.hits.sent");
+        this.droppedHits = meterRegistry.counter("stats.client.hits.dropped");
+        this.failedHits = meterRegistry.counter("stats.client.hits.failed");
+        meterRegistry.gauge("stats.client.queue.size", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isAsync()) {
+            return;
+        }
+        running = true;
+        sender = new Thread(this::runSender, "stats-hit-reporter");
+        sender.setDaemon(true);
+        sender.start();
+        log.info("Запущена асинхронная отправка хитов: емкость буфера {}, размер пакета {}, интервал отправки {}.",
+                properties.getCapacity(), properties.getBatchSize(), properties.getFlushInterval());
+    }
+
+    public void report(String uri, String ip, LocalDateTime requestDateTime) {
+        HitDto hit = new HitDto(StatsClient.MAIN_SERVICE_NAME, uri, ip, requestDateTime);
+        if (!properties.isAsync()) {
+            sendNow(hit);
+            return;
+        }
+        if (!queue.offer(hit)) {
+            droppedHits.increment();
+            log.debug("Буфер отправки хитов переполнен, хит {} отброшен.", uri);
+        }
+    }
+
+    /**
+     * Синхронная отправка одного хита без повторов. Недоступность сервиса статистики, в том числе разомкнутый
+     * предохранитель, не должна ломать запрос пользователя, поэтому ошибка только учитывается и логируется.
+     */
+    private void sendNow(HitDto hit) {
+        String error;
+        try {
+            ResponseEntity<Object> response = statsClient.hits(List.of(hit));
+            if (response.getStatusCode().is2xxSuccessful()) {
+                sentHits.increment();
+                return;
+            }
+            error = "статус ответа " + response.getStatusCode();
+        } catch (RestClientException e) {
+            error = e.getMessage();
+        }
+        failedHits.increment();
+        log.warn("Не удалось отправить хит {} в сервис статистики: {}", hit.getUri(), error);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (sender == null) {
+            return;
+        }
+        running = false;
+        sender.interrupt();
+        sender.join(properties.getShutdownTimeout().toMillis());
+        if (sender.isAlive()) {
+            log.warn("Буфер отправки хитов не успел опустеть за {}, в очереди осталось {} хитов.",
+                    properties.getShutdownTimeout(), queue.size());
+        }
+    }
+
+    private void runSender() {
+        int batchSize = properties.getBatchSize();
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        List<HitDto> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            long deadline = System.nanoTime() + flushIntervalNanos;
+            try {
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    HitDto hit = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (hit == null) {
+                        break;
+                    }
+                    batch.add(hit);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            send(batch);
+        }
+
+        while (!queue.isEmpty()) {
+            queue.drainTo(batch, batchSize);
+            send(batch);
+        }
+        log.info("Отправка хитов остановлена.");
+    }
+
+    private void send(List<HitDto> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int maxAttempts = running ? properties.getMaxAttempts() : 1;
+        for (int attempt = 1; ; attempt++) {
+            String error;
+            try {
+                ResponseEntity<Object> response = statsClient.hits(batch);
+                if (response.getStatusCode().is2xxSuccessful()) {
+                    sentHits.increment(batch.size());
+                    break;
+                }
+                error = "статус ответа " + response.getStatusCode();
+                if (response.getStatusCode().is4xxClientError()) {
+                    attempt = maxAttempts;
+                }
+            } catch (RestClientException e) {
+                error = e.getMessage();
+            }
+            if (attempt >= maxAttempts || !sleep(backoff(attempt))) {
+                failedHits.increment(batch.size());
+                log.warn("Не удалось отправить пакет из {} хитов в сервис статистики за {} попыток: {}",
+                        batch.size(), attempt, error);
+                break;
+            }
+        }
+        batch.clear();
+    }
+
+    private long backoff(int attempt) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        long delay = Math.min(max, initial << Math.min(attempt - 1, 30));
+        return ThreadLocalRandom.current().nextLong(delay / 2, delay + 1);
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            running = false;
+            return false;
+        }
+    }
+}
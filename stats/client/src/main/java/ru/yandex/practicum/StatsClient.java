@@ -1,31 +1,73 @@
 package ru.yandex.practicum;
 
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.yandex.practicum.dto.HitDto;
+import ru.yandex.practicum.dto.StatsQueryDto;
+import ru.yandex.practicum.dto.ViewStatsDto;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Component
+@Slf4j
 public class StatsClient extends BaseClient {
 
-    private static final String MAIN_SERVICE_NAME = "ewm-main-service";
+    static final String MAIN_SERVICE_NAME = "ewm-main-service";
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    private final CloseableHttpClient httpClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Map<String, Long> lastKnownHits = new ConcurrentHashMap<>();
+    private final int fallbackCapacity;
+
     @Autowired
-    public StatsClient(RestTemplateBuilder builder) {
+    public StatsClient(RestTemplateBuilder builder, StatsClientProperties properties) {
+        this(builder, properties, createHttpClient(properties.getTransport()));
+    }
+
+    private StatsClient(RestTemplateBuilder builder, StatsClientProperties properties, CloseableHttpClient httpClient) {
         super(builder
-                .uriTemplateHandler(new DefaultUriBuilderFactory("http://stats-server:9090"))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                .uriTemplateHandler(new DefaultUriBuilderFactory(properties.getUrl()))
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .additionalInterceptors(new GzipRequestInterceptor(properties.getTransport().getGzipMinSize()))
                 .build()
         );
+        this.httpClient = httpClient;
+        this.circuitBreaker = new CircuitBreaker(properties.getCircuitBreaker().getFailureThreshold(),
+                properties.getCircuitBreaker().getOpenDuration());
+        this.fallbackCapacity = properties.getCircuitBreaker().getFallbackCapacity();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
     }
 
     public ResponseEntity<Object> getStats(LocalDateTime start, LocalDateTime end) {
@@ -40,7 +82,7 @@ public class StatsClient extends BaseClient {
         Map<String, Object> parameters = Map.of(
                 "start", start.format(formatter),
                 "end", end.format(formatter),
-                "uris", uris,
+                "uris", String.join(",", uris),
                 "unique", isUnique
         );
         return get("/stats?start={start}&end={end}&uris={uris}&unique={unique}", parameters);
@@ -50,7 +92,7 @@ public class StatsClient extends BaseClient {
         Map<String, Object> parameters = Map.of(
                 "start", start.format(formatter),
                 "end", end.format(formatter),
-                "uris", uris
+                "uris", String.join(",", uris)
         );
         return get("/stats?start={start}&end={end}&uris={uris}", parameters);
     }
@@ -64,9 +106,137 @@ public class StatsClient extends BaseClient {
         return get("/stats?start={start}&end={end}&unique={unique}", parameters);
     }
 
+    /**
+     * Возвращает количество просмотров по uri. Uri передаются в теле POST /stats/query, поэтому размер
+     * списка не ограничен длиной строки запроса; ответ десериализуется сразу в массив DTO.
+     * Uri, по которым просмотров не было, в результат не попадают. Если сервер статистики недоступен
+     * или предохранитель разомкнут, возвращаются последние известные значения уникальных просмотров либо 0.
+     */
+    public Map<String, Long> getHits(LocalDateTime start, LocalDateTime end, Collection<String> uris, boolean isUnique) {
+        if (!circuitBreaker.tryAcquire()) {
+            return getFallbackHits(uris);
+        }
+        try {
+            return fetchHits(start, end, uris, isUnique);
+        } catch (HttpClientErrorException e) {
+            log.warn("Сервер статистики отклонил запрос просмотров: {}", e.getMessage());
+            return getFallbackHits(uris);
+        } catch (RestClientException e) {
+            log.warn("Не удалось получить просмотры от сервера статистики: {}", e.getMessage());
+            return getFallbackHits(uris);
+        }
+    }
+
+    /**
+     * То же, что {@link #getHits}, но без подстановки последних известных значений: ошибка сервера статистики
+     * пробрасывается, при разомкнутом предохранителе выбрасывается {@link ResourceAccessException}.
+     * Пустой список uri означает все uri.
+     */
+    public Map<String, Long> queryHits(LocalDateTime start, LocalDateTime end, Collection<String> uris,
+                                       boolean isUnique) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new ResourceAccessException("Сервер статистики недоступен, предохранитель разомкнут.");
+        }
+        return fetchHits(start, end, uris, isUnique);
+    }
+
+    private Map<String, Long> fetchHits(LocalDateTime start, LocalDateTime end, Collection<String> uris,
+                                        boolean isUnique) {
+        StatsQueryDto query = StatsQueryDto.builder()
+                .start(start)
+                .end(end)
+                .uris(List.copyOf(uris))
+                .unique(isUnique)
+                .build();
+        ViewStatsDto[] stats;
+        try {
+            stats = post("/stats/query", query, ViewStatsDto[].class);
+            circuitBreaker.onSuccess();
+        } catch (HttpClientErrorException e) {
+            circuitBreaker.onSuccess();
+            throw e;
+        } catch (RestClientException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        }
+        if (stats == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> hits = new HashMap<>(stats.length * 2);
+        for (ViewStatsDto stat : stats) {
+            hits.put(stat.getUri(), stat.getHits());
+        }
+        if (isUnique) {
+            rememberHits(hits);
+        }
+        return hits;
+    }
+
     public ResponseEntity<Object> hit(String uri, String ip,
                                       LocalDateTime requestDateTime) {
         HitDto hitDto = new HitDto(MAIN_SERVICE_NAME, uri, ip, requestDateTime);
-        return post(hitDto);
+        return post("/hit", hitDto);
+    }
+
+    /**
+     * Отправляет пакет хитов. При разомкнутом предохранителе запрос не выполняется
+     * и выбрасывается {@link ResourceAccessException}.
+     */
+    public ResponseEntity<Object> hits(List<HitDto> hitDtos) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new ResourceAccessException("Сервер статистики недоступен, предохранитель разомкнут.");
+        }
+        ResponseEntity<Object> response;
+        try {
+            response = post("/hits", hitDtos);
+        } catch (RestClientException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+        return response;
+    }
+
+    private Map<String, Long> getFallbackHits(Collection<String> uris) {
+        Map<String, Long> hits = new HashMap<>(uris.size() * 2);
+        for (String uri : uris) {
+            hits.put(uri, lastKnownHits.getOrDefault(uri, 0L));
+        }
+        return hits;
+    }
+
+    private void rememberHits(Map<String, Long> hits) {
+        hits.forEach((uri, count) -> {
+            if (lastKnownHits.size() < fallbackCapacity || lastKnownHits.containsKey(uri)) {
+                lastKnownHits.put(uri, count);
+            }
+        });
+    }
+
+    private static CloseableHttpClient createHttpClient(StatsClientProperties.Transport transport) {
+        long keepAlive = transport.getKeepAlive().toMillis();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(transport.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(transport.getMaxConnectionsPerRoute());
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) transport.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) transport.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) transport.getConnectionRequestTimeout().toMillis())
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+                            .getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive) : keepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+                .build();
     }
 }
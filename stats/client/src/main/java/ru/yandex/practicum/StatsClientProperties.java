@@ -0,0 +1,101 @@
+package ru.yandex.practicum;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "stats-client")
+public class StatsClientProperties {
+    private String url = "http://stats-server:9090";
+
+    private final Transport transport = new Transport();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private final Report report = new Report();
+
+    @Getter
+    @Setter
+    public static class Transport {
+        private int maxConnections = 50;
+
+        private int maxConnectionsPerRoute = 50;
+
+        private Duration connectTimeout = Duration.ofMillis(500);
+
+        /**
+         * Максимальное время ожидания ответа на запрос.
+         */
+        private Duration readTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Максимальное время ожидания свободного соединения из пула.
+         */
+        private Duration connectionRequestTimeout = Duration.ofMillis(500);
+
+        /**
+         * Сколько держать простаивающее соединение открытым для повторного использования.
+         */
+        private Duration keepAlive = Duration.ofSeconds(30);
+
+        /**
+         * Минимальный размер тела запроса в байтах, начиная с которого оно сжимается gzip.
+         */
+        private int gzipMinSize = 2048;
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        /**
+         * Количество подряд неудачных запросов, после которого запросы к серверу статистики прекращаются.
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * Время, через которое после размыкания пропускается пробный запрос.
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * Сколько последних известных значений просмотров хранить для ответа при недоступном сервере.
+         */
+        private int fallbackCapacity = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Report {
+        /**
+         * true - хиты копятся в локальном буфере и отправляются пакетами фоновым потоком,
+         * false - каждый хит отправляется в потоке запроса.
+         */
+        private boolean async = true;
+
+        private int capacity = 10_000;
+
+        private int batchSize = 500;
+
+        /**
+         * Максимальное время, которое хит может провести в буфере до отправки.
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Количество попыток отправки пакета, включая первую.
+         */
+        private int maxAttempts = 5;
+
+        private Duration initialBackoff = Duration.ofMillis(200);
+
+        private Duration maxBackoff = Duration.ofSeconds(10);
+
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+}
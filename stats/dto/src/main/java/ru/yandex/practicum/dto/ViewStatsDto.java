@@ -0,0 +1,18 @@
+package ru.yandex.practicum.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ViewStatsDto implements StatsDto {
+    private String app;
+
+    private String uri;
+
+    private Long hits;
+}
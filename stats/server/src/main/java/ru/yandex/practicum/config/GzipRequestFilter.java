@@ -0,0 +1,165 @@
+package ru.yandex.practicum.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Распаковывает тела запросов с заголовком Content-Encoding: gzip. Сжатие ответов
+ * выполняет сам контейнер (server.compression).
+ */
+@Component
+public class GzipRequestFilter extends OncePerRequestFilter {
+    private static final String GZIP = "gzip";
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        return encoding == null || !encoding.trim().equalsIgnoreCase(GZIP);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        filterChain.doFilter(new GzipRequestWrapper(request), response);
+    }
+
+    private static class GzipRequestWrapper extends HttpServletRequestWrapper {
+        private final GzipServletInputStream body;
+
+        GzipRequestWrapper(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = new GzipServletInputStream(new GZIPInputStream(request.getInputStream()));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (isHiddenHeader(name)) {
+                return null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (isHiddenHeader(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getHeaders(name);
+        }
+
+        private static boolean isHiddenHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    /**
+     * Распакованные данные читаются блокирующе из исходного потока запроса, поэтому поток всегда готов
+     * к чтению: слушатель неблокирующего чтения сразу получает onDataAvailable, а после конца данных - onAllDataRead.
+     */
+    private static class GzipServletInputStream extends ServletInputStream {
+        private final InputStream delegate;
+        private boolean finished;
+        private ReadListener listener;
+
+        GzipServletInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = delegate.read();
+            if (value == -1) {
+                finish();
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = delegate.read(buffer, offset, length);
+            if (count == -1) {
+                finish();
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            if (readListener == null) {
+                throw new NullPointerException("ReadListener");
+            }
+            if (listener != null) {
+                throw new IllegalStateException("ReadListener уже установлен.");
+            }
+            listener = readListener;
+            try {
+                if (finished) {
+                    listener.onAllDataRead();
+                } else {
+                    listener.onDataAvailable();
+                }
+            } catch (IOException e) {
+                listener.onError(e);
+            }
+        }
+
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (listener != null) {
+                listener.onAllDataRead();
+            }
+        }
+    }
+}
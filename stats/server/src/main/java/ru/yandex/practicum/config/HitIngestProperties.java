@@ -0,0 +1,45 @@
+package ru.yandex.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.yandex.practicum.enums.IngestMode;
+import ru.yandex.practicum.enums.OverflowPolicy;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.ingest")
+public class HitIngestProperties {
+    /**
+     * SYNC - хит пишется в БД в потоке запроса, ASYNC - через буфер с фоновой записью пакетами.
+     */
+    private IngestMode mode = IngestMode.SYNC;
+
+    private int capacity = 10_000;
+
+    private int batchSize = 500;
+
+    /**
+     * Максимальное время, которое хит может провести в буфере до записи в БД.
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    /**
+     * Сколько ждать освобождения места в буфере при политике BLOCK, прежде чем ответить 503.
+     */
+    private Duration blockTimeout = Duration.ofSeconds(5);
+
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Пауза перед повторной записью пакета после ошибки БД; удваивается с каждой попыткой до retryMaxBackoff.
+     * Пока пакет не записан, новые хиты копятся в буфере и теряются только по политике переполнения.
+     */
+    private Duration retryBackoff = Duration.ofMillis(100);
+
+    private Duration retryMaxBackoff = Duration.ofSeconds(5);
+}
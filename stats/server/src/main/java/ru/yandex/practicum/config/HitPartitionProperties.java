@@ -0,0 +1,28 @@
+package ru.yandex.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.yandex.practicum.enums.PartitionInterval;
+
+import java.time.Period;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.partition")
+public class HitPartitionProperties {
+    private PartitionInterval interval = PartitionInterval.MONTH;
+
+    /**
+     * Сколько партиций таблицы hits создавать заранее, начиная со следующей за текущей.
+     */
+    private int premake = 2;
+
+    /**
+     * Срок хранения сырых хитов. Партиции, целиком вышедшие за этот срок, удаляются.
+     * Нулевой срок отключает удаление.
+     */
+    private Period retention = Period.ZERO;
+
+    private String maintenanceCron = "0 0 * * * *";
+}
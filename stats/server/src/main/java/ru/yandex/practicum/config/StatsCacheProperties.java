@@ -0,0 +1,36 @@
+package ru.yandex.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.cache")
+public class StatsCacheProperties {
+    private boolean enabled = true;
+
+    /**
+     * Ограничение примерного объема кэшированных результатов в памяти.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Время жизни результата для окна, захватывающего текущий момент.
+     */
+    private Duration openTtl = Duration.ofSeconds(5);
+
+    /**
+     * Время жизни результата для окна, целиком лежащего в прошлом.
+     */
+    private Duration closedTtl = Duration.ofHours(1);
+
+    /**
+     * Окно считается закрытым, если его конец раньше текущего момента на эту величину:
+     * хиты из буферов записи и клиентов успевают попасть в БД.
+     */
+    private Duration closedGrace = Duration.ofMinutes(5);
+}
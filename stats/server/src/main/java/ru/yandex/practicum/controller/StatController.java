@@ -8,8 +8,10 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.dto.HitDto;
 import ru.yandex.practicum.dto.StatsDto;
+import ru.yandex.practicum.dto.StatsQueryDto;
 import ru.yandex.practicum.service.StatService;
 
+import javax.validation.Valid;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -28,13 +30,31 @@ public class StatController {
         statService.saveHit(hitDto);
     }
 
+    @PostMapping("/hits")
+    @ResponseStatus(HttpStatus.CREATED)
+    public void saveUserRequestsInfo(@RequestBody List<HitDto> hitDtos) {
+        log.info("Получен POST запрос на пакетное сохранение информации запросов пользователей. Количество: {}",
+                hitDtos.size());
+        statService.saveHits(hitDtos);
+    }
+
     @GetMapping("/stats")
     public List<StatsDto> getStats(@RequestParam @DateTimeFormat(pattern = DATE_FORMAT) LocalDateTime start,
                                    @RequestParam @DateTimeFormat(pattern = DATE_FORMAT) LocalDateTime end,
                                    @RequestParam(required = false, name = "uris") List<String> uris,
-                                   @RequestParam(required = false, defaultValue = "false", name = "unique") Boolean unique) {
+                                   @RequestParam(required = false, defaultValue = "false", name = "unique") Boolean unique,
+                                   @RequestParam(required = false, defaultValue = "false", name = "exact") Boolean exact) {
         log.info("Получен GET запрос на получение статистика от даты: {}, до даты: {}, список uri \n {}," +
-                " уникальность посещений: {}", start, end, uris, unique);
-        return statService.getStats(start, end, uris, unique);
+                " уникальность посещений: {}, точный подсчет: {}", start, end, uris, unique, exact);
+        return statService.getStats(start, end, uris, unique, exact);
+    }
+
+    @PostMapping("/stats/query")
+    public List<StatsDto> queryStats(@RequestBody @Valid StatsQueryDto query) {
+        log.info("Получен POST запрос на получение статистики от даты: {}, до даты: {}, количество uri: {}," +
+                        " уникальность посещений: {}, точный подсчет: {}", query.getStart(), query.getEnd(),
+                query.getUris() == null ? 0 : query.getUris().size(), query.isUnique(), query.isExact());
+        return statService.getStats(query.getStart(), query.getEnd(), query.getUris(), query.isUnique(),
+                query.isExact());
     }
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package ru.yandex.practicum.enums;
+
+public enum IngestMode {
+    SYNC,
+    ASYNC
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.enums;
+
+public enum OverflowPolicy {
+    BLOCK,
+    DROP_OLDEST,
+    REJECT
+}
@@ -0,0 +1,6 @@
+package ru.yandex.practicum.enums;
+
+public enum PartitionInterval {
+    DAY,
+    MONTH
+}
@@ -26,6 +26,6 @@ public class Hit {
     @Column(nullable = false, name = "ip")
     private String ip;
 
-    @Column(nullable = false, name = "timestamp")
+    @Column(nullable = false, name = "request_date")
     private LocalDateTime timestamp;
 }
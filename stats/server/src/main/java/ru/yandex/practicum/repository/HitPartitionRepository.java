@@ -0,0 +1,140 @@
+package ru.yandex.practicum.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.config.HitPartitionProperties;
+import ru.yandex.practicum.enums.PartitionInterval;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Управляет партициями таблицы hits, разбитой по диапазонам request_date.
+ * Известные партиции кэшируются, чтобы проверка перед вставкой не ходила в каталог БД.
+ */
+@Repository
+@Slf4j
+public class HitPartitionRepository {
+    private static final String SELECT_PARTITIONS_SQL = "SELECT c.relname AS name, " +
+            "pg_get_expr(c.relpartbound, c.oid) AS bound " +
+            "FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'hits'";
+    private static final Pattern BOUND_PATTERN = Pattern.compile("FROM \\('([^']+)'\\) TO \\('([^']+)'\\)");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DAY_SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTH_SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HitPartitionProperties properties;
+    private final NavigableMap<LocalDateTime, HitPartition> partitions = new ConcurrentSkipListMap<>();
+
+    public HitPartitionRepository(JdbcTemplate jdbcTemplate, HitPartitionProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    public List<HitPartition> findAll() {
+        List<HitPartition> found = new ArrayList<>();
+        jdbcTemplate.query(SELECT_PARTITIONS_SQL, rs -> {
+            Matcher matcher = BOUND_PATTERN.matcher(rs.getString("bound"));
+            if (matcher.find()) {
+                found.add(new HitPartition(rs.getString("name"),
+                        LocalDateTime.parse(matcher.group(1), BOUND_FORMAT),
+                        LocalDateTime.parse(matcher.group(2), BOUND_FORMAT)));
+            }
+        });
+        partitions.clear();
+        found.forEach(partition -> partitions.put(partition.getFrom(), partition));
+        return found;
+    }
+
+    /**
+     * Создает недостающие партиции для переданных моментов времени. Выполняется вне текущей транзакции,
+     * чтобы блокировка родительской таблицы не удерживалась до конца вставки хитов.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void ensurePartitions(Collection<LocalDateTime> timestamps) {
+        TreeSet<LocalDateTime> missing = new TreeSet<>();
+        for (LocalDateTime timestamp : timestamps) {
+            if (!isCovered(timestamp)) {
+                missing.add(intervalStart(timestamp));
+            }
+        }
+        missing.forEach(this::create);
+    }
+
+    public void create(LocalDateTime from) {
+        if (isCovered(from)) {
+            return;
+        }
+        LocalDateTime to = nextIntervalStart(from);
+        String name = "hits_p" + from.format(properties.getInterval() == PartitionInterval.DAY
+                ? DAY_SUFFIX_FORMAT
+                : MONTH_SUFFIX_FORMAT);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF hits " +
+                    "FOR VALUES FROM ('" + from.format(BOUND_FORMAT) + "') TO ('" + to.format(BOUND_FORMAT) + "')");
+            partitions.put(from, new HitPartition(name, from, to));
+            log.info("Создана партиция {} таблицы hits для диапазона [{}, {}).", name, from, to);
+        } catch (DataAccessException e) {
+            findAll();
+            if (!isCovered(from)) {
+                throw e;
+            }
+        }
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void drop(HitPartition partition) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition.getName());
+        partitions.remove(partition.getFrom());
+        log.info("Удалена партиция {} таблицы hits для диапазона [{}, {}).", partition.getName(),
+                partition.getFrom(), partition.getTo());
+    }
+
+    public LocalDateTime intervalStart(LocalDateTime timestamp) {
+        if (properties.getInterval() == PartitionInterval.DAY) {
+            return timestamp.truncatedTo(ChronoUnit.DAYS);
+        }
+        return timestamp.toLocalDate().withDayOfMonth(1).atStartOfDay();
+    }
+
+    public LocalDateTime nextIntervalStart(LocalDateTime intervalStart) {
+        return properties.getInterval() == PartitionInterval.DAY
+                ? intervalStart.plusDays(1)
+                : intervalStart.plusMonths(1);
+    }
+
+    private boolean isCovered(LocalDateTime timestamp) {
+        Map.Entry<LocalDateTime, HitPartition> entry = partitions.floorEntry(timestamp);
+        return entry != null && timestamp.isBefore(entry.getValue().getTo());
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class HitPartition {
+        private final String name;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+    }
+}
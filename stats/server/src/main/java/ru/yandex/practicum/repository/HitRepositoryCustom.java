@@ -0,0 +1,16 @@
+package ru.yandex.practicum.repository;
+
+import ru.yandex.practicum.dto.StatsDto;
+import ru.yandex.practicum.model.Hit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HitRepositoryCustom {
+
+    void saveAllInBatch(List<Hit> hits);
+
+    List<StatsDto> countHits(LocalDateTime start, LocalDateTime end, List<String> uris);
+
+    List<StatsDto> countUniqueHitsExact(LocalDateTime start, LocalDateTime end, List<String> uris);
+}
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.dto.StatsDto;
+import ru.yandex.practicum.dto.ViewStatsDto;
+import ru.yandex.practicum.model.Hit;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class HitRepositoryImpl implements HitRepositoryCustom {
+    private static final String INSERT_HIT_SQL =
+            "INSERT INTO hits (app, uri, ip, request_date) VALUES (?, ?, ?, ?)";
+    private static final String UPSERT_ROLLUP_SQL =
+            "INSERT INTO %s (app, uri, bucket, hits) VALUES (?, ?, ?, ?) " +
+                    "ON CONFLICT (uri, bucket, app) DO UPDATE SET hits = %<s.hits + EXCLUDED.hits";
+    private static final String MINUTE_ROLLUP_TABLE = "hits_minute";
+    private static final String HOUR_ROLLUP_TABLE = "hits_hour";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final HitSketchRepository hitSketchRepository;
+    private final HitPartitionRepository hitPartitionRepository;
+
+    @Value("${stats.jdbc.batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public void saveAllInBatch(List<Hit> hits) {
+        hitPartitionRepository.ensurePartitions(hits.stream()
+                .map(Hit::getTimestamp)
+                .collect(Collectors.toSet()));
+        jdbcTemplate.batchUpdate(INSERT_HIT_SQL, hits, batchSize, (ps, hit) -> {
+            ps.setString(1, hit.getApp());
+            ps.setString(2, hit.getUri());
+            ps.setString(3, hit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+        upsertRollup(MINUTE_ROLLUP_TABLE, hits, ChronoUnit.MINUTES);
+        upsertRollup(HOUR_ROLLUP_TABLE, hits, ChronoUnit.HOURS);
+        hitSketchRepository.addAll(hits);
+    }
+
+    /**
+     * Считает хиты за [start, end]: выровненная часть диапазона берется из часовых и минутных бакетов,
+     * по сырым строкам hits сканируются только невыровненные края.
+     */
+    @Override
+    public List<StatsDto> countHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        LocalDateTime minuteFrom = ceil(start, ChronoUnit.MINUTES);
+        LocalDateTime minuteTo = end.truncatedTo(ChronoUnit.MINUTES);
+        if (!minuteFrom.isBefore(minuteTo)) {
+            minuteFrom = end;
+            minuteTo = end;
+        }
+        LocalDateTime hourFrom = ceil(minuteFrom, ChronoUnit.HOURS);
+        LocalDateTime hourTo = minuteTo.truncatedTo(ChronoUnit.HOURS);
+        if (!hourFrom.isBefore(hourTo)) {
+            hourFrom = minuteTo;
+            hourTo = minuteTo;
+        }
+
+        boolean filterUris = uris != null && !uris.isEmpty();
+        String uriFilter = filterUris ? " AND uri = ANY(:uris)" : "";
+        String sql = "SELECT app, uri, SUM(hits) AS hits FROM (" +
+                "SELECT app, uri, COUNT(*) AS hits FROM hits " +
+                "WHERE request_date >= :start AND request_date < :minuteFrom" + uriFilter + " GROUP BY app, uri " +
+                "UNION ALL " +
+                "SELECT app, uri, hits FROM hits_minute " +
+                "WHERE bucket >= :minuteFrom AND bucket < :hourFrom" + uriFilter + " " +
+                "UNION ALL " +
+                "SELECT app, uri, hits FROM hits_hour " +
+                "WHERE bucket >= :hourFrom AND bucket < :hourTo" + uriFilter + " " +
+                "UNION ALL " +
+                "SELECT app, uri, hits FROM hits_minute " +
+                "WHERE bucket >= :hourTo AND bucket < :minuteTo" + uriFilter + " " +
+                "UNION ALL " +
+                "SELECT app, uri, COUNT(*) AS hits FROM hits " +
+                "WHERE request_date >= :minuteTo AND request_date <= :end" + uriFilter + " GROUP BY app, uri" +
+                ") AS parts GROUP BY app, uri ORDER BY hits DESC";
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end))
+                .addValue("minuteFrom", Timestamp.valueOf(minuteFrom))
+                .addValue("minuteTo", Timestamp.valueOf(minuteTo))
+                .addValue("hourFrom", Timestamp.valueOf(hourFrom))
+                .addValue("hourTo", Timestamp.valueOf(hourTo));
+        if (filterUris) {
+            parameters.addValue("uris", SqlArrays.varcharArray(uris), Types.ARRAY);
+        }
+
+        return namedParameterJdbcTemplate.query(sql, parameters, (rs, rowNum) -> new ViewStatsDto(
+                rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    @Override
+    public List<StatsDto> countUniqueHitsExact(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        boolean filterUris = uris != null && !uris.isEmpty();
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        if (filterUris) {
+            parameters.addValue("uris", SqlArrays.varcharArray(uris), Types.ARRAY);
+        }
+        String sql = "SELECT app, uri, COUNT(DISTINCT ip) AS hits FROM hits " +
+                "WHERE request_date >= :start AND request_date <= :end" +
+                (filterUris ? " AND uri = ANY(:uris)" : "") +
+                " GROUP BY app, uri ORDER BY hits DESC";
+        return namedParameterJdbcTemplate.query(sql, parameters, (rs, rowNum) -> new ViewStatsDto(
+                rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    private void upsertRollup(String table, List<Hit> hits, ChronoUnit unit) {
+        Map<RollupKey, Long> buckets = hits.stream()
+                .collect(Collectors.groupingBy(hit -> new RollupKey(hit.getApp(), hit.getUri(),
+                                hit.getTimestamp().truncatedTo(unit)),
+                        () -> new TreeMap<>(RollupKey.ORDER), Collectors.counting()));
+        // Ключи отсортированы, чтобы параллельные сбросы блокировали строки бакетов в одном порядке.
+        List<Map.Entry<RollupKey, Long>> rows = new ArrayList<>(buckets.entrySet());
+        jdbcTemplate.batchUpdate(String.format(UPSERT_ROLLUP_SQL, table), rows, batchSize, (ps, row) -> {
+            ps.setString(1, row.getKey().getApp());
+            ps.setString(2, row.getKey().getUri());
+            ps.setTimestamp(3, Timestamp.valueOf(row.getKey().getBucket()));
+            ps.setLong(4, row.getValue());
+        });
+    }
+
+    private static LocalDateTime ceil(LocalDateTime dateTime, ChronoUnit unit) {
+        LocalDateTime truncated = dateTime.truncatedTo(unit);
+        return truncated.equals(dateTime) ? truncated : truncated.plus(1, unit);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class RollupKey {
+        private static final Comparator<RollupKey> ORDER = Comparator.comparing(RollupKey::getUri)
+                .thenComparing(RollupKey::getBucket)
+                .thenComparing(RollupKey::getApp);
+
+        private final String app;
+        private final String uri;
+        private final LocalDateTime bucket;
+    }
+}
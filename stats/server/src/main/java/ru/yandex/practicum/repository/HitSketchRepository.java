@@ -0,0 +1,173 @@
+package ru.yandex.practicum.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.dto.StatsDto;
+import ru.yandex.practicum.dto.ViewStatsDto;
+import ru.yandex.practicum.model.Hit;
+import ru.yandex.practicum.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Хранилище часовых скетчей HyperLogLog по уникальным ip для (app, uri, час).
+ */
+@Repository
+public class HitSketchRepository {
+    private static final String INSERT_EMPTY_SKETCH_SQL = "INSERT INTO hits_unique_hour (app, uri, bucket) " +
+            "VALUES (?, ?, ?) ON CONFLICT (uri, bucket, app) DO NOTHING";
+    private static final String SELECT_SKETCHES_FOR_UPDATE_SQL = "SELECT app, uri, bucket, sketch " +
+            "FROM hits_unique_hour WHERE (uri, bucket, app) IN (:keys) ORDER BY uri, bucket, app FOR UPDATE";
+    private static final String UPDATE_SKETCH_SQL = "UPDATE hits_unique_hour SET sketch = ? " +
+            "WHERE uri = ? AND bucket = ? AND app = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final int precision;
+    private final int batchSize;
+
+    public HitSketchRepository(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                               @Value("${stats.unique.precision:12}") int precision,
+                               @Value("${stats.jdbc.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.precision = new HyperLogLog(precision).getPrecision();
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Добавляет ip из пакета хитов в часовые скетчи. Строки скетчей сначала создаются, затем блокируются
+     * в едином порядке, поэтому параллельные сбросы не теряют данные друг друга.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addAll(List<Hit> hits) {
+        Map<SketchKey, HyperLogLog> batchSketches = hits.stream()
+                .collect(Collectors.groupingBy(hit -> new SketchKey(hit.getApp(), hit.getUri(),
+                                hit.getTimestamp().truncatedTo(ChronoUnit.HOURS)),
+                        () -> new TreeMap<>(SketchKey.ORDER),
+                        Collectors.collectingAndThen(Collectors.toList(), this::toSketch)));
+        List<SketchKey> keys = new ArrayList<>(batchSketches.keySet());
+
+        jdbcTemplate.batchUpdate(INSERT_EMPTY_SKETCH_SQL, keys, batchSize, (ps, key) -> {
+            ps.setString(1, key.getApp());
+            ps.setString(2, key.getUri());
+            ps.setTimestamp(3, Timestamp.valueOf(key.getBucket()));
+        });
+
+        List<Map.Entry<SketchKey, HyperLogLog>> merged = new ArrayList<>(keys.size());
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<Object[]> keyParams = keys.subList(from, Math.min(from + batchSize, keys.size())).stream()
+                    .map(key -> new Object[]{key.getUri(), Timestamp.valueOf(key.getBucket()), key.getApp()})
+                    .collect(Collectors.toList());
+            namedParameterJdbcTemplate.query(SELECT_SKETCHES_FOR_UPDATE_SQL, Map.of("keys", keyParams), rs -> {
+                SketchKey key = new SketchKey(rs.getString("app"), rs.getString("uri"),
+                        rs.getTimestamp("bucket").toLocalDateTime());
+                HyperLogLog sketch = batchSketches.get(key);
+                byte[] stored = rs.getBytes("sketch");
+                if (stored != null) {
+                    sketch = HyperLogLog.fromBytes(stored).merge(sketch);
+                }
+                merged.add(Map.entry(key, sketch));
+            });
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_SKETCH_SQL, merged, batchSize, (ps, entry) -> {
+            ps.setBytes(1, entry.getValue().toBytes());
+            ps.setString(2, entry.getKey().getUri());
+            ps.setTimestamp(3, Timestamp.valueOf(entry.getKey().getBucket()));
+            ps.setString(4, entry.getKey().getApp());
+        });
+    }
+
+    /**
+     * Оценивает число уникальных ip за [start, end]: целые часы берутся из скетчей,
+     * ip с невыровненных краев диапазона добавляются из сырых строк hits.
+     */
+    @Transactional(readOnly = true)
+    public List<StatsDto> countUniqueHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        LocalDateTime hourFrom = start.truncatedTo(ChronoUnit.HOURS);
+        if (!hourFrom.equals(start)) {
+            hourFrom = hourFrom.plusHours(1);
+        }
+        LocalDateTime hourTo = end.truncatedTo(ChronoUnit.HOURS);
+        if (!hourFrom.isBefore(hourTo)) {
+            hourFrom = end;
+            hourTo = end;
+        }
+
+        boolean filterUris = uris != null && !uris.isEmpty();
+        String uriFilter = filterUris ? " AND uri = ANY(:uris)" : "";
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end))
+                .addValue("hourFrom", Timestamp.valueOf(hourFrom))
+                .addValue("hourTo", Timestamp.valueOf(hourTo));
+        if (filterUris) {
+            parameters.addValue("uris", SqlArrays.varcharArray(uris), Types.ARRAY);
+        }
+
+        Map<UriKey, HyperLogLog> sketches = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT app, uri, sketch FROM hits_unique_hour " +
+                "WHERE bucket >= :hourFrom AND bucket < :hourTo AND sketch IS NOT NULL" + uriFilter, parameters, rs -> {
+                    UriKey key = new UriKey(rs.getString("app"), rs.getString("uri"));
+                    HyperLogLog sketch = HyperLogLog.fromBytes(rs.getBytes("sketch"));
+                    sketches.merge(key, sketch, HyperLogLog::merge);
+                });
+        namedParameterJdbcTemplate.query("SELECT DISTINCT app, uri, ip FROM hits " +
+                "WHERE ((request_date >= :start AND request_date < :hourFrom) " +
+                "OR (request_date >= :hourTo AND request_date <= :end))" + uriFilter, parameters, rs -> {
+                    UriKey key = new UriKey(rs.getString("app"), rs.getString("uri"));
+                    sketches.computeIfAbsent(key, k -> new HyperLogLog(precision)).add(rs.getString("ip"));
+                });
+
+        return sketches.entrySet().stream()
+                .map(entry -> new ViewStatsDto(entry.getKey().getApp(), entry.getKey().getUri(),
+                        entry.getValue().estimate()))
+                .sorted(Comparator.comparing(ViewStatsDto::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private HyperLogLog toSketch(List<Hit> hits) {
+        HyperLogLog sketch = new HyperLogLog(precision);
+        hits.forEach(hit -> sketch.add(hit.getIp()));
+        return sketch;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class SketchKey {
+        private static final Comparator<SketchKey> ORDER = Comparator.comparing(SketchKey::getUri)
+                .thenComparing(SketchKey::getBucket)
+                .thenComparing(SketchKey::getApp);
+
+        private final String app;
+        private final String uri;
+        private final LocalDateTime bucket;
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class UriKey {
+        private final String app;
+        private final String uri;
+    }
+}
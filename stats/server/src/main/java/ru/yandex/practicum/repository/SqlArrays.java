@@ -0,0 +1,26 @@
+package ru.yandex.practicum.repository;
+
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * Передает список значений одним параметром-массивом: условие вида {@code uri = ANY(:uris)} не зависит
+ * от длины списка, поэтому план запроса переиспользуется при любом количестве uri.
+ */
+final class SqlArrays {
+    private SqlArrays() {
+    }
+
+    static AbstractSqlTypeValue varcharArray(Collection<String> values) {
+        return new AbstractSqlTypeValue() {
+            @Override
+            protected Array createTypeValue(Connection connection, int sqlType, String typeName) throws SQLException {
+                return connection.createArrayOf("varchar", values.toArray());
+            }
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.config.HitPartitionProperties;
+import ru.yandex.practicum.repository.HitPartitionRepository;
+import ru.yandex.practicum.repository.HitPartitionRepository.HitPartition;
+
+import java.time.LocalDateTime;
+
+/**
+ * Заранее создает партиции таблицы hits и удаляет партиции старше срока хранения.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class HitPartitionMaintenance {
+    private final HitPartitionRepository hitPartitionRepository;
+    private final HitPartitionProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${stats.partition.maintenance-cron:0 0 * * * *}")
+    public void maintain() {
+        hitPartitionRepository.findAll();
+        LocalDateTime now = LocalDateTime.now();
+
+        LocalDateTime from = hitPartitionRepository.intervalStart(now);
+        for (int i = 0; i <= properties.getPremake(); i++) {
+            hitPartitionRepository.create(from);
+            from = hitPartitionRepository.nextIntervalStart(from);
+        }
+
+        if (properties.getRetention().isZero()) {
+            return;
+        }
+        LocalDateTime cutoff = now.minus(properties.getRetention());
+        for (HitPartition partition : hitPartitionRepository.findAll()) {
+            if (!partition.getTo().isAfter(cutoff)) {
+                hitPartitionRepository.drop(partition);
+            }
+        }
+    }
+}
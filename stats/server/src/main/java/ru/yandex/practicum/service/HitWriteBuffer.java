@@ -0,0 +1,185 @@
+package ru.yandex.practicum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.config.HitIngestProperties;
+import ru.yandex.practicum.enums.IngestMode;
+import ru.yandex.practicum.exceptions.ServiceUnavailableException;
+import ru.yandex.practicum.model.Hit;
+import ru.yandex.practicum.repository.HitRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Буфер отложенной записи хитов: запросы кладут хиты в ограниченную очередь,
+ * фоновый поток пишет их в БД пакетами по размеру или по возрасту. Пакет, который не удалось записать,
+ * повторяется с нарастающей паузой; хиты считаются потерянными, только если БД недоступна до конца
+ * времени на остановку.
+ */
+@Component
+@Slf4j
+public class HitWriteBuffer {
+    private final HitRepository hitRepository;
+    private final HitIngestProperties properties;
+    private final StatsResultCache statsResultCache;
+    private final BlockingQueue<Hit> queue;
+    private final Counter droppedHits;
+    private final Counter rejectedHits;
+    private final Counter lostHits;
+
+    private volatile boolean running;
+    private volatile long stopDeadlineNanos;
+    private Thread flusher;
+
+    public HitWriteBuffer(HitRepository hitRepository, HitIngestProperties properties,
+                          StatsResultCache statsResultCache, MeterRegistry meterRegistry) {
+        this.hitRepository = hitRepository;
+        this.properties = properties;
+        this.statsResultCache = statsResultCache;
+        this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+        this.droppedHits = meterRegistry.counter("stats.ingest.hits.dropped");
+        this.rejectedHits = meterRegistry.counter("stats.ingest.hits.rejected");
+        this.lostHits = meterRegistry.counter("stats.ingest.hits.lost");
+        meterRegistry.gauge("stats.ingest.queue.size", queue, BlockingQueue::size);
+    }
+
+    public boolean isEnabled() {
+        return properties.getMode() == IngestMode.ASYNC;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "hit-write-buffer-flusher");
+        flusher.start();
+        log.info("Запущена асинхронная запись хитов: емкость буфера {}, размер пакета {}, интервал сброса {}, " +
+                        "политика переполнения {}.", properties.getCapacity(), properties.getBatchSize(),
+                properties.getFlushInterval(), properties.getOverflowPolicy());
+    }
+
+    public void add(Hit hit) {
+        switch (properties.getOverflowPolicy()) {
+            case BLOCK:
+                addBlocking(hit);
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(hit)) {
+                    if (queue.poll() != null) {
+                        droppedHits.increment();
+                    }
+                }
+                break;
+            case REJECT:
+                if (!queue.offer(hit)) {
+                    rejectedHits.increment();
+                    throw new ServiceUnavailableException("Буфер записи хитов переполнен.");
+                }
+                break;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        stopDeadlineNanos = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+        running = false;
+        flusher.join(properties.getShutdownTimeout().toMillis());
+        if (flusher.isAlive()) {
+            log.warn("Буфер записи хитов не успел сбросить данные за {}, в очереди осталось {} хитов.",
+                    properties.getShutdownTimeout(), queue.size());
+        }
+    }
+
+    private void addBlocking(Hit hit) {
+        try {
+            if (!queue.offer(hit, properties.getBlockTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                rejectedHits.increment();
+                throw new ServiceUnavailableException("Буфер записи хитов переполнен, истекло время ожидания: "
+                        + properties.getBlockTimeout());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Ожидание места в буфере записи хитов прервано.");
+        }
+    }
+
+    private void runFlusher() {
+        int batchSize = properties.getBatchSize();
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        List<Hit> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            long deadline = System.nanoTime() + flushIntervalNanos;
+            try {
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Hit hit = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (hit == null) {
+                        break;
+                    }
+                    batch.add(hit);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            flush(batch);
+        }
+
+        while (!queue.isEmpty()) {
+            queue.drainTo(batch, batchSize);
+            flush(batch);
+        }
+        log.info("Буфер записи хитов остановлен, все хиты сброшены в БД.");
+    }
+
+    private void flush(List<Hit> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long backoffNanos = properties.getRetryBackoff().toNanos();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                hitRepository.saveAllInBatch(batch);
+                statsResultCache.evictLate(batch);
+                log.debug("Пакет из {} хитов записан в БД из буфера.", batch.size());
+                break;
+            } catch (RuntimeException e) {
+                if (!running && System.nanoTime() + backoffNanos - stopDeadlineNanos > 0) {
+                    lostHits.increment(batch.size());
+                    log.error("Не удалось записать пакет из {} хитов в БД до остановки: {}", batch.size(),
+                            e.getMessage());
+                    break;
+                }
+                log.warn("Не удалось записать пакет из {} хитов в БД (попытка {}), повтор через {} мс: {}",
+                        batch.size(), attempt, TimeUnit.NANOSECONDS.toMillis(backoffNanos), e.getMessage());
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoffNanos);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                    stopDeadlineNanos = System.nanoTime();
+                }
+                backoffNanos = Math.min(backoffNanos * 2, properties.getRetryMaxBackoff().toNanos());
+            }
+        }
+        batch.clear();
+    }
+}
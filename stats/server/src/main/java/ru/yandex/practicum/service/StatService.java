@@ -10,5 +10,8 @@ public interface StatService {
 
     void saveHit(HitDto hitDto);
 
-    List<StatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean isUnique);
+    void saveHits(List<HitDto> hitDtos);
+
+    List<StatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean isUnique,
+                            Boolean isExact);
 }
@@ -3,6 +3,7 @@ package ru.yandex.practicum.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.dto.HitDto;
 import ru.yandex.practicum.dto.StatsDto;
@@ -10,6 +11,7 @@ import ru.yandex.practicum.exceptions.ValidationException;
 import ru.yandex.practicum.model.Hit;
 import ru.yandex.practicum.model.HitMapper;
 import ru.yandex.practicum.repository.HitRepository;
+import ru.yandex.practicum.repository.HitSketchRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,35 +23,50 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class StatServiceImpl implements StatService {
     private final HitRepository hitRepository;
+    private final HitSketchRepository hitSketchRepository;
+    private final HitWriteBuffer hitWriteBuffer;
+    private final StatsResultCache statsResultCache;
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void saveHit(HitDto hitDto) {
-        Hit hitDb = hitRepository.save(HitMapper.toHit(hitDto));
-        log.info("Хит {} сохранен в БД в таблицу hits по ID: {}", hitDb, hitDb.getId());
+        if (hitWriteBuffer.isEnabled()) {
+            hitWriteBuffer.add(HitMapper.toHit(hitDto));
+            log.debug("Хит {} помещен в буфер записи.", hitDto);
+            return;
+        }
+        List<Hit> hits = List.of(HitMapper.toHit(hitDto));
+        hitRepository.saveAllInBatch(hits);
+        statsResultCache.evictLate(hits);
+        log.info("Хит {} сохранен в БД в таблицу hits.", hitDto);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void saveHits(List<HitDto> hitDtos) {
+        List<Hit> hits = hitDtos.stream()
+                .map(HitMapper::toHit)
+                .collect(Collectors.toList());
+        if (hitWriteBuffer.isEnabled()) {
+            hits.forEach(hitWriteBuffer::add);
+            log.debug("Пакет из {} хитов помещен в буфер записи.", hits.size());
+            return;
+        }
+        hitRepository.saveAllInBatch(hits);
+        statsResultCache.evictLate(hits);
+        log.info("Пакет из {} хитов сохранен в БД в таблицу hits.", hits.size());
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<StatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean isUnique) {
+    public List<StatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean isUnique,
+                                   Boolean isExact) {
         if (start.isAfter(end)) {
             throw new ValidationException("Дата начала: " + start + " не может быть позже даты конца: " + end);
         }
 
-        List<StatsDto> stats;
-
-        if (uris != null && !uris.isEmpty()) {
-            if (isUnique) {
-                stats = hitRepository.findUniqueHitsByUris(start, end, uris);
-            } else {
-                stats = hitRepository.findHitsByUris(start, end, uris);
-            }
-        } else {
-            if (isUnique) {
-                stats = hitRepository.findUniqueHits(start, end);
-            } else {
-                stats = hitRepository.findHits(start, end);
-            }
-        }
+        List<StatsDto> stats = statsResultCache.get(start, end, uris, isUnique, isExact,
+                () -> countStats(start, end, uris, isUnique, isExact));
         log.info("Получена статистика посещений: {}", stats.stream()
                 .map(s -> "StatsDto{" +
                         "app='" + s.getApp() + '\'' +
@@ -59,4 +76,15 @@ public class StatServiceImpl implements StatService {
                 .collect(Collectors.toList()));
         return stats;
     }
+
+    private List<StatsDto> countStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean isUnique,
+                                      boolean isExact) {
+        if (!isUnique) {
+            return hitRepository.countHits(start, end, uris);
+        }
+        if (!isExact) {
+            return hitSketchRepository.countUniqueHits(start, end, uris);
+        }
+        return hitRepository.countUniqueHitsExact(start, end, uris);
+    }
 }
@@ -0,0 +1,150 @@
+package ru.yandex.practicum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.config.StatsCacheProperties;
+import ru.yandex.practicum.dto.StatsDto;
+import ru.yandex.practicum.model.Hit;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов /stats. Результаты для окон, целиком лежащих в прошлом, не меняются и хранятся долго
+ * с вытеснением по объему; окна, захватывающие текущий момент, живут недолго.
+ * Запоздавшие хиты сбрасывают закрытые окна, в которые они попадают.
+ */
+@Component
+@Slf4j
+public class StatsResultCache {
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final int STATS_OVERHEAD = 64;
+
+    private final StatsCacheProperties properties;
+    private final Cache<Key, List<StatsDto>> cache;
+
+    public StatsResultCache(StatsCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher(StatsResultCache::weigh)
+                .expireAfter(new WindowExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "stats.results");
+        meterRegistry.gauge("stats.results.cache.weight.bytes", cache,
+                c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+    }
+
+    public List<StatsDto> get(LocalDateTime start, LocalDateTime end, List<String> uris, boolean isUnique,
+                              boolean isExact, Supplier<List<StatsDto>> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        List<String> sortedUris = uris == null ? new ArrayList<>() : new ArrayList<>(uris);
+        sortedUris.sort(null);
+        boolean closed = isClosed(end);
+        Key key = new Key(start, closed ? end : bucket(end), List.copyOf(sortedUris), isUnique, isExact, closed);
+        return cache.get(key, k -> List.copyOf(loader.get()));
+    }
+
+    /**
+     * Сбрасывает закрытые окна, в которые попадают запоздавшие хиты.
+     */
+    public void evictLate(Collection<Hit> hits) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LocalDateTime closedBefore = LocalDateTime.now().minus(properties.getClosedGrace());
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (Hit hit : hits) {
+            LocalDateTime timestamp = hit.getTimestamp();
+            if (timestamp.isBefore(closedBefore)) {
+                from = from == null || timestamp.isBefore(from) ? timestamp : from;
+                to = to == null || timestamp.isAfter(to) ? timestamp : to;
+            }
+        }
+        if (from == null) {
+            return;
+        }
+        LocalDateTime lateFrom = from;
+        LocalDateTime lateTo = to;
+        cache.asMap().keySet().removeIf(key -> key.isClosed()
+                && !key.getEnd().isBefore(lateFrom) && !key.getStart().isAfter(lateTo));
+        log.debug("Сброшены результаты статистики для окон, пересекающих [{}, {}], из-за запоздавших хитов.",
+                lateFrom, lateTo);
+    }
+
+    private boolean isClosed(LocalDateTime end) {
+        return end.isBefore(LocalDateTime.now().minus(properties.getClosedGrace()));
+    }
+
+    /**
+     * Клиенты запрашивают открытые окна с end = текущий момент, поэтому конец окна в ключе округляется вниз
+     * до open-ttl: запросы в пределах бакета получают один результат. Расхождение с точным подсчетом
+     * не превышает open-ttl, как и без округления, ведь запись живет не дольше open-ttl.
+     */
+    private LocalDateTime bucket(LocalDateTime end) {
+        long bucketMillis = properties.getOpenTtl().toMillis();
+        if (bucketMillis <= 0) {
+            return end;
+        }
+        long millis = end.toInstant(ZoneOffset.UTC).toEpochMilli();
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis - Math.floorMod(millis, bucketMillis)),
+                ZoneOffset.UTC);
+    }
+
+    private static int weigh(Key key, List<StatsDto> stats) {
+        long weight = ENTRY_OVERHEAD;
+        for (String uri : key.getUris()) {
+            weight += STATS_OVERHEAD + 2L * uri.length();
+        }
+        for (StatsDto stat : stats) {
+            weight += STATS_OVERHEAD + 2L * (stat.getApp().length() + stat.getUri().length());
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private class WindowExpiry implements Expiry<Key, List<StatsDto>> {
+        @Override
+        public long expireAfterCreate(Key key, List<StatsDto> value, long currentTime) {
+            return (key.isClosed() ? properties.getClosedTtl() : properties.getOpenTtl()).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, List<StatsDto> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Key key, List<StatsDto> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final List<String> uris;
+        private final boolean unique;
+        private final boolean exact;
+        private final boolean closed;
+    }
+}
@@ -1,9 +1,40 @@
-DROP TABLE IF EXISTS hits CASCADE;
-
 CREATE TABLE IF NOT EXISTS hits (
-    id      BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    id      BIGSERIAL,
     app     varchar(100) NOT NULL,
     uri     varchar(100) NOT NULL,
     ip      varchar(100) NOT NULL,
-    request_date      timestamp NOT NULL
-);
\ No newline at end of file
+    request_date      timestamp NOT NULL,
+    PRIMARY KEY (id, request_date)
+) PARTITION BY RANGE (request_date);
+
+CREATE INDEX IF NOT EXISTS hits_request_date_uri_idx ON hits (request_date, uri);
+
+CREATE TABLE IF NOT EXISTS hits_minute (
+    app     varchar(100) NOT NULL,
+    uri     varchar(100) NOT NULL,
+    bucket  timestamp NOT NULL,
+    hits    bigint NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE INDEX IF NOT EXISTS hits_minute_bucket_idx ON hits_minute (bucket);
+
+CREATE TABLE IF NOT EXISTS hits_hour (
+    app     varchar(100) NOT NULL,
+    uri     varchar(100) NOT NULL,
+    bucket  timestamp NOT NULL,
+    hits    bigint NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE INDEX IF NOT EXISTS hits_hour_bucket_idx ON hits_hour (bucket);
+
+CREATE TABLE IF NOT EXISTS hits_unique_hour (
+    app     varchar(100) NOT NULL,
+    uri     varchar(100) NOT NULL,
+    bucket  timestamp NOT NULL,
+    sketch  bytea,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE INDEX IF NOT EXISTS hits_unique_hour_bucket_idx ON hits_unique_hour (bucket);
\ No newline at end of file
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GzipRequestFilterTest {
+    private static final String BODY = "{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\"}";
+
+    private final GzipRequestFilter filter = new GzipRequestFilter();
+
+    @Test
+    void decompressesBodyAndHidesEncodingHeaders() throws Exception {
+        ServletRequest request = filter(gzipRequest());
+
+        assertEquals(BODY, new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertTrue(request.getInputStream().isFinished());
+        assertNull(((HttpServletRequest) request).getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(-1, request.getContentLength());
+    }
+
+    @Test
+    void notifiesReadListenerUntilAllDataRead() throws Exception {
+        ServletInputStream input = filter(gzipRequest()).getInputStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        List<String> calls = new ArrayList<>();
+
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                calls.add("onDataAvailable");
+                byte[] buffer = new byte[8];
+                int count;
+                while (input.isReady() && (count = input.read(buffer)) != -1) {
+                    body.write(buffer, 0, count);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                calls.add("onAllDataRead");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                calls.add("onError");
+            }
+        });
+
+        assertEquals(BODY, body.toString(StandardCharsets.UTF_8));
+        assertEquals(List.of("onDataAvailable", "onAllDataRead"), calls);
+    }
+
+    private ServletRequest filter(MockHttpServletRequest request) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain.getRequest();
+    }
+
+    private static MockHttpServletRequest gzipRequest() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/hit");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        request.setContent(compressed.toByteArray());
+        return request;
+    }
+}
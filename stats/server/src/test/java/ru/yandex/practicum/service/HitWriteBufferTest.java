@@ -0,0 +1,89 @@
+package ru.yandex.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import ru.yandex.practicum.config.HitIngestProperties;
+import ru.yandex.practicum.config.StatsCacheProperties;
+import ru.yandex.practicum.enums.IngestMode;
+import ru.yandex.practicum.model.Hit;
+import ru.yandex.practicum.repository.HitRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Ошибка записи пакета в БД не теряет хиты: пакет повторяется с паузой, пока буфер работает,
+ * и считается потерянным, только если БД недоступна до конца времени на остановку.
+ */
+class HitWriteBufferTest {
+    private static final int HITS = 3;
+
+    private final HitRepository hitRepository = mock(HitRepository.class);
+    private final HitIngestProperties properties = new HitIngestProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HitWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        properties.setMode(IngestMode.ASYNC);
+        properties.setFlushInterval(Duration.ofMillis(20));
+        properties.setRetryBackoff(Duration.ofMillis(10));
+        properties.setRetryMaxBackoff(Duration.ofMillis(40));
+        properties.setShutdownTimeout(Duration.ofMillis(500));
+        buffer = new HitWriteBuffer(hitRepository, properties,
+                new StatsResultCache(new StatsCacheProperties(), meterRegistry), meterRegistry);
+    }
+
+    @Test
+    void retriesFailedBatchUntilWritten() throws Exception {
+        AtomicInteger written = new AtomicInteger();
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .doThrow(new DataAccessResourceFailureException("connection refused"))
+                .doAnswer(invocation -> written.addAndGet(invocation.<List<Hit>>getArgument(0).size()))
+                .when(hitRepository).saveAllInBatch(any());
+
+        buffer.start();
+        addHits();
+        buffer.stop();
+
+        assertEquals(HITS, written.get());
+        assertEquals(0, meterRegistry.counter("stats.ingest.hits.lost").count());
+    }
+
+    @Test
+    void countsHitsAsLostOnlyWhenDatabaseStaysDownThroughShutdown() throws Exception {
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .when(hitRepository).saveAllInBatch(any());
+
+        buffer.start();
+        addHits();
+        Thread.sleep(200);
+        assertEquals(0, meterRegistry.counter("stats.ingest.hits.lost").count());
+        buffer.stop();
+
+        // Последняя попытка может завершиться на границе ожидания остановки.
+        long deadline = System.currentTimeMillis() + 1000;
+        while (meterRegistry.counter("stats.ingest.hits.lost").count() < HITS
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(HITS, meterRegistry.counter("stats.ingest.hits.lost").count());
+    }
+
+    private void addHits() {
+        for (int i = 0; i < HITS; i++) {
+            buffer.add(Hit.builder().app("ewm-main-service").uri("/events/" + i).ip("127.0.0.1")
+                    .timestamp(LocalDateTime.now()).build());
+        }
+    }
+}
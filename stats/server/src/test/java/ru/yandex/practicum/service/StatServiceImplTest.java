@@ -0,0 +1,74 @@
+package ru.yandex.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.config.StatsCacheProperties;
+import ru.yandex.practicum.dto.StatsDto;
+import ru.yandex.practicum.dto.ViewStatsDto;
+import ru.yandex.practicum.repository.HitRepository;
+import ru.yandex.practicum.repository.HitSketchRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatServiceImplTest {
+    private static final LocalDateTime START = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final HitRepository hitRepository = mock(HitRepository.class);
+    private final HitSketchRepository hitSketchRepository = mock(HitSketchRepository.class);
+    private final StatsCacheProperties properties = new StatsCacheProperties();
+    private StatServiceImpl statService;
+
+    @BeforeEach
+    void setUp() {
+        properties.setOpenTtl(Duration.ofMinutes(1));
+        statService = new StatServiceImpl(hitRepository, hitSketchRepository, mock(HitWriteBuffer.class),
+                new StatsResultCache(properties, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void getStatsWithoutUris() {
+        LocalDateTime end = LocalDateTime.now();
+        List<StatsDto> stats = List.of(new ViewStatsDto("ewm-main-service", "/events/1", 3L));
+        when(hitRepository.countHits(START, end, null)).thenReturn(stats);
+
+        assertEquals(stats, statService.getStats(START, end, null, false, false));
+        assertEquals(stats, statService.getStats(START, end, null, false, false));
+        verify(hitRepository, times(1)).countHits(START, end, null);
+    }
+
+    @Test
+    void getStatsReusesOpenWindowWithinBucket() {
+        LocalDateTime bucketStart = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        when(hitRepository.countHits(eq(START), any(), isNull())).thenReturn(List.of());
+
+        statService.getStats(START, bucketStart.plusSeconds(1), null, false, false);
+        statService.getStats(START, bucketStart.plusSeconds(59), null, false, false);
+        verify(hitRepository, times(1)).countHits(eq(START), any(), isNull());
+
+        statService.getStats(START, bucketStart.plusMinutes(1), null, false, false);
+        verify(hitRepository, times(2)).countHits(eq(START), any(), isNull());
+    }
+
+    @Test
+    void getStatsKeepsExactEndForClosedWindows() {
+        LocalDateTime end = LocalDateTime.of(2020, 1, 1, 0, 0);
+        when(hitRepository.countHits(eq(START), any(), isNull())).thenReturn(List.of());
+
+        statService.getStats(START, end, null, false, false);
+        statService.getStats(START, end.plusSeconds(1), null, false, false);
+        verify(hitRepository, times(2)).countHits(eq(START), any(), isNull());
+    }
+}